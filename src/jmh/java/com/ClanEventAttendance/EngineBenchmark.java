@@ -0,0 +1,113 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OperationsPerInvocation;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Presence events per second through the attendance engine alone, without
+ * the client or the plugin, buffered in PresenceChanges and applied a tick
+ * at a time like the plugin does.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class EngineBenchmark {
+    private static final int EVENTS_PER_TICK = 1000;
+
+    @Param({ "500", "5000" })
+    int members;
+
+    private AttendanceEngine engine;
+    private final PresenceChanges changes = new PresenceChanges();
+    private String[] keys;
+    private boolean[] presents;
+    private int[] picks;
+    private int next;
+    private int tick;
+
+    @Setup
+    public void setUp() {
+        engine = new AttendanceEngine(AttendanceEngine.Listener.NONE);
+        engine.start(0);
+
+        keys = new String[members];
+        for (int i = 0; i < members; ++i) {
+            keys[i] = "member " + i;
+        }
+
+        // A fixed random walk of members coming and going
+        final Random random = new Random(1);
+        picks = new int[1 << 16];
+        presents = new boolean[picks.length];
+        for (int i = 0; i < picks.length; ++i) {
+            picks[i] = random.nextInt(members);
+            presents[i] = random.nextBoolean();
+        }
+    }
+
+    @Benchmark
+    @OperationsPerInvocation(EVENTS_PER_TICK)
+    public int applyTick() {
+        for (int i = 0; i < EVENTS_PER_TICK; ++i) {
+            final int pick = next++ & (picks.length - 1);
+            final String key = keys[picks[pick]];
+            if (presents[pick])
+                changes.present(key, key, 1L << EventIndex.PRIMARY);
+            else
+                changes.absent(key, 1L << EventIndex.PRIMARY);
+        }
+
+        ++tick;
+        for (int i = 0; i < changes.size(); ++i) {
+            if (changes.absentEvents(i) != 0)
+                engine.absent(changes.key(i), tick);
+            if (changes.presentEvents(i) != 0)
+                engine.present(changes.key(i), changes.name(i), tick);
+        }
+        changes.clear();
+
+        return engine.getAttendance().size();
+    }
+}
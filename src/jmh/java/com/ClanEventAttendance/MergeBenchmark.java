@@ -0,0 +1,110 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Random;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Reading and merging the snapshots of a multi-world event, ex: a dozen
+ * clients with 500 members each, most of them seen by several clients.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.AverageTime)
+@OutputTimeUnit(TimeUnit.MILLISECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class MergeBenchmark {
+    // Three hours
+    private static final int DURATION_TICKS = 18_000;
+
+    @Param({ "12" })
+    int clients;
+
+    @Param({ "500" })
+    int members;
+
+    private String[] files;
+
+    @Setup
+    public void setUp() throws IOException {
+        final Random random = new Random(1);
+        files = new String[clients];
+
+        for (int c = 0; c < clients; ++c) {
+            final List<AttendanceSnapshot.Member> seen = new ArrayList<>(members);
+            for (int m = 0; m < members; ++m) {
+                // Clients share most of the clan
+                final String key = "member " + random.nextInt(members * 2);
+                final int[] intervals = new int[2 * (1 + random.nextInt(10))];
+                int tick = 0;
+                for (int i = 0; i < intervals.length; i += 2) {
+                    tick += random.nextInt(DURATION_TICKS / intervals.length);
+                    intervals[i] = tick;
+                    tick += 1 + random.nextInt(DURATION_TICKS / intervals.length);
+                    intervals[i + 1] = tick;
+                }
+                seen.add(new AttendanceSnapshot.Member(key, key, intervals));
+            }
+
+            // Clients start their events a few seconds apart
+            final AttendanceSnapshot snapshot = new AttendanceSnapshot(1_700_000_000_000L + random.nextInt(30_000),
+                    DURATION_TICKS, 300 + c, seen);
+            final StringWriter out = new StringWriter();
+            snapshot.write(out);
+            files[c] = out.toString();
+        }
+    }
+
+    @Benchmark
+    public AttendanceExport readAndMerge() throws IOException {
+        final List<AttendanceSnapshot> snapshots = new ArrayList<>(clients);
+        for (String file : files) {
+            snapshots.add(AttendanceSnapshot.read(new StringReader(file)));
+        }
+
+        return AttendanceSnapshot.merge(snapshots).toExport(600, 300);
+    }
+}
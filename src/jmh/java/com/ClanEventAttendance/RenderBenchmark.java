@@ -0,0 +1,103 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.awt.image.BufferedImage;
+import java.util.concurrent.TimeUnit;
+import org.openjdk.jmh.annotations.Benchmark;
+import org.openjdk.jmh.annotations.BenchmarkMode;
+import org.openjdk.jmh.annotations.Fork;
+import org.openjdk.jmh.annotations.Measurement;
+import org.openjdk.jmh.annotations.Mode;
+import org.openjdk.jmh.annotations.OutputTimeUnit;
+import org.openjdk.jmh.annotations.Param;
+import org.openjdk.jmh.annotations.Scope;
+import org.openjdk.jmh.annotations.Setup;
+import org.openjdk.jmh.annotations.State;
+import org.openjdk.jmh.annotations.TearDown;
+import org.openjdk.jmh.annotations.Warmup;
+
+/**
+ * Cost of building the attendance list, a single row, a duration and the
+ * timeline image.
+ */
+@State(Scope.Benchmark)
+@BenchmarkMode(Mode.Throughput)
+@OutputTimeUnit(TimeUnit.SECONDS)
+@Warmup(iterations = 3, time = 1)
+@Measurement(iterations = 5, time = 1)
+@Fork(1)
+public class RenderBenchmark {
+    @Param({ "50", "500", "5000" })
+    int attendees;
+
+    private PluginHarness harness;
+    private int seconds;
+
+    @Setup
+    public void setUp() {
+        harness = new PluginHarness();
+        harness.startEvent();
+        harness.populate(attendees);
+    }
+
+    @TearDown
+    public void tearDown() {
+        harness.close();
+    }
+
+    // Every present row changes each tick, its time goes up
+    @Benchmark
+    public String generateTextData() {
+        harness.tick();
+        return harness.plugin.generateTextData(false);
+    }
+
+    @Benchmark
+    public String generateFinalTextData() {
+        return harness.plugin.generateTextData(true);
+    }
+
+    // Only the rows of present members are drawn again
+    @Benchmark
+    public BufferedImage renderTimeline() {
+        harness.tick();
+        return harness.plugin.renderTimeline();
+    }
+
+    @Benchmark
+    public String memberAttendanceToString() {
+        return harness.plugin.memberAttendanceToString(0);
+    }
+
+    @Benchmark
+    public String timeFormat() {
+        seconds = (seconds + 37) % 20000;
+        return ClanEventAttendancePlugin.timeFormat(seconds);
+    }
+}
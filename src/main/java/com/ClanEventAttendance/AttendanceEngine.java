@@ -0,0 +1,127 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import lombok.Getter;
+
+/**
+ * Attendance of one event, driven only by presence events: a member key, the
+ * tick it happened on and whether the member became present or absent.
+ * It knows nothing of the client. The plugin handlers decide who is present
+ * and feed it, so it can also run headless, ex: in tests and benchmarks.
+ *
+ * Single writer, every call must come from the same thread. The plugin
+ * batches the changes of a tick in {@link PresenceChanges} and applies them
+ * here once per tick.
+ */
+class AttendanceEngine {
+    /**
+     * Changes the engine made, ticks are relative to the event start.
+     */
+    interface Listener {
+        Listener NONE = new Listener() {
+            @Override
+            public void added(int tick, String key, String name) {
+            }
+
+            @Override
+            public void present(int tick, String key) {
+            }
+
+            @Override
+            public void absent(int tick, String key) {
+            }
+        };
+
+        void added(int tick, String key, String name);
+
+        void present(int tick, String key);
+
+        void absent(int tick, String key);
+    }
+
+    @Getter
+    private final AttendanceStore attendance = new AttendanceStore();
+    // Presence intervals of the members in attendance, by the same ids
+    @Getter
+    private final PresenceTimeline timeline = new PresenceTimeline();
+    private final Listener listener;
+    @Getter
+    private int startedAt;
+
+    AttendanceEngine(Listener listener) {
+        this.listener = listener;
+    }
+
+    void start(int tick) {
+        attendance.clear();
+        timeline.clear();
+        startedAt = tick;
+    }
+
+    // Adds the member if needed, then marks them present from tick on
+    void present(String key, String name, int tick) {
+        int id = attendance.id(key);
+        if (id == AttendanceStore.NONE) {
+            listener.added(tick - startedAt, key, name);
+            id = attendance.add(key, name, tick - startedAt);
+        }
+
+        if (!attendance.unpause(id, tick))
+            return;
+
+        timeline.open(id, tick - startedAt);
+        listener.present(tick - startedAt, key);
+    }
+
+    boolean isPresent(String key) {
+        final int id = attendance.id(key);
+        return id != AttendanceStore.NONE && attendance.isPresent(id);
+    }
+
+    // Ignores members who aren't present
+    void absent(String key, int tick) {
+        final int id = attendance.id(key);
+        if (id == AttendanceStore.NONE || !attendance.isPresent(id))
+            return;
+
+        // Add elapsed tick to the total
+        attendance.accumulate(id, tick);
+        attendance.pause(id);
+        timeline.close(id, tick - startedAt);
+        listener.absent(tick - startedAt, key);
+    }
+
+    // Closes every open presence interval so totals are final
+    void stop(int tick) {
+        for (int id = 0; id < attendance.size(); ++id) {
+            attendance.accumulate(id, tick);
+            timeline.close(id, tick - startedAt);
+        }
+    }
+}
@@ -0,0 +1,172 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import com.ClanEventAttendance.config.OutputFormat;
+import java.io.IOException;
+import java.io.Writer;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import lombok.Value;
+
+/**
+ * Machine-readable CSV and JSON exports, written straight from attendance
+ * records. Built on the client thread, the export is immutable and can be
+ * written from any thread.
+ */
+@Value
+class AttendanceExport {
+    @Value
+    static class Row {
+        String name;
+        int ticksTotal;
+        int ticksLate;
+        boolean late;
+        boolean aboveThreshold;
+        int joins;
+        int leaves;
+        // Presence intervals in event ticks, start, end pairs
+        int[] intervals;
+    }
+
+    long startedAtMillis;
+    int durationTicks;
+    int presentThreshold;
+    int lateThreshold;
+    List<Row> rows;
+
+    void write(Writer out, OutputFormat format) throws IOException {
+        if (format == OutputFormat.JSON)
+            writeJson(out);
+        else
+            writeCsv(out);
+    }
+
+    void writeCsv(Writer out) throws IOException {
+        out.write("name,above_threshold,time_ticks,time_seconds,late,late_ticks,late_seconds,joins,leaves\n");
+
+        for (Row row : rows) {
+            writeCsvField(out, row.name);
+            out.write(',');
+            out.write(Boolean.toString(row.aboveThreshold));
+            out.write(',');
+            out.write(Integer.toString(row.ticksTotal));
+            out.write(',');
+            out.write(Integer.toString(ClanEventAttendancePlugin.ticksToSeconds(row.ticksTotal)));
+            out.write(',');
+            out.write(Boolean.toString(row.late));
+            out.write(',');
+            out.write(Integer.toString(row.ticksLate));
+            out.write(',');
+            out.write(Integer.toString(ClanEventAttendancePlugin.ticksToSeconds(row.ticksLate)));
+            out.write(',');
+            out.write(Integer.toString(row.joins));
+            out.write(',');
+            out.write(Integer.toString(row.leaves));
+            out.write('\n');
+        }
+    }
+
+    void writeJson(Writer out) throws IOException {
+        out.write("{\n  \"startedAt\": ");
+        writeJsonString(out, new SimpleDateFormat("yyyy-MM-dd'T'HH:mm:ssXXX").format(new Date(startedAtMillis)));
+        out.write(",\n  \"durationTicks\": ");
+        out.write(Integer.toString(durationTicks));
+        out.write(",\n  \"durationSeconds\": ");
+        out.write(Integer.toString(ClanEventAttendancePlugin.ticksToSeconds(durationTicks)));
+        out.write(",\n  \"presentThresholdSeconds\": ");
+        out.write(Integer.toString(presentThreshold));
+        out.write(",\n  \"lateThresholdSeconds\": ");
+        out.write(Integer.toString(lateThreshold));
+        out.write(",\n  \"members\": [");
+
+        for (int i = 0; i < rows.size(); ++i) {
+            final Row row = rows.get(i);
+
+            out.write(i == 0 ? "\n    {\"name\": " : ",\n    {\"name\": ");
+            writeJsonString(out, row.name);
+            out.write(", \"aboveThreshold\": ");
+            out.write(Boolean.toString(row.aboveThreshold));
+            out.write(", \"timeTicks\": ");
+            out.write(Integer.toString(row.ticksTotal));
+            out.write(", \"timeSeconds\": ");
+            out.write(Integer.toString(ClanEventAttendancePlugin.ticksToSeconds(row.ticksTotal)));
+            out.write(", \"late\": ");
+            out.write(Boolean.toString(row.late));
+            out.write(", \"lateTicks\": ");
+            out.write(Integer.toString(row.ticksLate));
+            out.write(", \"lateSeconds\": ");
+            out.write(Integer.toString(ClanEventAttendancePlugin.ticksToSeconds(row.ticksLate)));
+            out.write(", \"joins\": ");
+            out.write(Integer.toString(row.joins));
+            out.write(", \"leaves\": ");
+            out.write(Integer.toString(row.leaves));
+            out.write(", \"intervals\": [");
+            for (int j = 0; j < row.intervals.length; j += 2) {
+                if (j > 0)
+                    out.write(", ");
+                out.write('[');
+                out.write(Integer.toString(row.intervals[j]));
+                out.write(", ");
+                out.write(Integer.toString(row.intervals[j + 1]));
+                out.write(']');
+            }
+            out.write("]}");
+        }
+
+        out.write(rows.isEmpty() ? "]\n}\n" : "\n  ]\n}\n");
+    }
+
+    private static void writeCsvField(Writer out, String value) throws IOException {
+        if (value.indexOf(',') < 0 && value.indexOf('"') < 0 && value.indexOf('\n') < 0 && value.indexOf('\r') < 0) {
+            out.write(value);
+            return;
+        }
+
+        out.write('"');
+        out.write(value.replace("\"", "\"\""));
+        out.write('"');
+    }
+
+    private static void writeJsonString(Writer out, String value) throws IOException {
+        out.write('"');
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+            if (c == '"' || c == '\\') {
+                out.write('\\');
+                out.write(c);
+            } else if (c < 0x20) {
+                out.write(String.format("\\u%04x", (int) c));
+            } else {
+                out.write(c);
+            }
+        }
+        out.write('"');
+    }
+}
@@ -0,0 +1,120 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.StandardCopyOption;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Writes attendance lists to disk off the client thread.
+ * Save requests coalesce per file, if a save is still pending when a new one
+ * comes in, only the newest gets written. Files are written to a temporary file first
+ * and then moved over the previous version, so a crash never leaves a
+ * half-written list behind.
+ */
+@Slf4j
+@Singleton
+class AttendanceFileWriter {
+    // Streams a snapshot to the file, called on the executor
+    interface Content {
+        void writeTo(Writer out) throws IOException;
+    }
+
+    private final Map<File, Content> pending = new ConcurrentHashMap<>();
+
+    @Inject
+    private ScheduledExecutorService executor;
+
+    void save(File file, String htmlContent) {
+        save(file, out -> {
+            out.write(toText(htmlContent));
+            out.write(System.lineSeparator());
+        });
+    }
+
+    void save(File file, Content content) {
+        if (pending.put(file, content) == null) {
+            executor.execute(() -> drain(file));
+        }
+    }
+
+    private void drain(File file) {
+        final Content content = pending.remove(file);
+
+        if (content == null)
+            return;
+
+        try {
+            write(file, content);
+            // log.info("Saved attendance to " + file.getAbsolutePath());
+        } catch (Exception e) {
+            log.error("Failed to save attendance file", e);
+        }
+    }
+
+    private static String toText(String htmlContent) {
+        // Strip HTML for clean text file
+        return htmlContent
+                .replace("<html><body><pre>", "")
+                .replace("</pre></body></html>", "")
+                .replace("<br/>", System.lineSeparator())
+                .replaceAll("<[^>]+>", "");
+    }
+
+    private static void write(File file, Content content) throws IOException {
+        final File dir = file.getParentFile();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        final File tmp = new File(dir, file.getName() + ".tmp");
+
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(tmp), StandardCharsets.UTF_8)) {
+            content.writeTo(out);
+        }
+
+        try {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(tmp.toPath(), file.toPath(), StandardCopyOption.REPLACE_EXISTING);
+        }
+    }
+}
@@ -0,0 +1,100 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+/**
+ * Writes attendance rows and durations into a caller supplied builder, with
+ * the exact text the String.format patterns used to produce, but without
+ * allocating. Reusing one builder per list keeps a render allocation free.
+ */
+final class AttendanceFormatter {
+    static final int NAME_WIDTH = 12;
+    static final int TIME_WIDTH = 6;
+
+    private AttendanceFormatter() {
+    }
+
+    static void appendRow(StringBuilder sb, String color, String name, int totalSeconds,
+                          boolean lateColumn, boolean late, int lateSeconds) {
+        sb.append("<font color='").append(color).append("'>");
+        appendCells(sb, name, totalSeconds, lateColumn, late, lateSeconds);
+        sb.append("</font><br/>");
+    }
+
+    // %-12s | %-6s | %-6s, late column only when lateColumn
+    static void appendCells(StringBuilder sb, String name, int totalSeconds,
+                            boolean lateColumn, boolean late, int lateSeconds) {
+        appendPadded(sb, name, NAME_WIDTH);
+        sb.append(" | ");
+        appendTimePadded(sb, totalSeconds, TIME_WIDTH);
+
+        if (lateColumn) {
+            sb.append(" | ");
+            if (late)
+                appendTimePadded(sb, lateSeconds, TIME_WIDTH);
+            else
+                appendPadded(sb, "-", TIME_WIDTH);
+        }
+    }
+
+    // ex: 18:26, 118:26
+    static void appendTime(StringBuilder sb, int totalSeconds) {
+        if (totalSeconds < 0) {
+            // Never happens in practice, keep whatever %02d made of it
+            final int minute = totalSeconds / 60;
+            sb.append(String.format("%02d:%02d", minute, totalSeconds - minute * 60));
+            return;
+        }
+
+        final int minute = totalSeconds / 60;
+        final int second = totalSeconds - minute * 60;
+
+        if (minute < 10)
+            sb.append('0');
+        sb.append(minute).append(':');
+        if (second < 10)
+            sb.append('0');
+        sb.append(second);
+    }
+
+    // Left aligned, padded with spaces up to width, never truncated
+    static void appendPadded(StringBuilder sb, String value, int width) {
+        sb.append(value);
+        for (int i = value.length(); i < width; ++i) {
+            sb.append(' ');
+        }
+    }
+
+    private static void appendTimePadded(StringBuilder sb, int totalSeconds, int width) {
+        final int start = sb.length();
+        appendTime(sb, totalSeconds);
+        for (int i = sb.length() - start; i < width; ++i) {
+            sb.append(' ');
+        }
+    }
+}
@@ -0,0 +1,298 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import lombok.Value;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Local store of every finished event, indexed by member so history queries
+ * don't need to read back old attendance files.
+ *
+ * The store is a single append-only file, one line per event followed by one
+ * line per attending member, tab separated:
+ * <pre>
+ * E  startMillis  durationTicks
+ * M  startMillis  ticksTotal  ticksLate  key  name
+ * </pre>
+ * Backslashes, tabs and line breaks in the key and name are escaped. It is read
+ * once, queries are then answered from memory. Access it from the executor, it
+ * does file I/O.
+ */
+@Slf4j
+class AttendanceHistory {
+    @Value
+    static class Attendance {
+        long startMillis;
+        String name;
+        int ticksTotal;
+        int ticksLate;
+    }
+
+    @Value
+    static class MemberSummary {
+        String name;
+        int events;
+        int ticksTotal;
+    }
+
+    @Value
+    static class Record {
+        String key;
+        String name;
+        int ticksTotal;
+        int ticksLate;
+    }
+
+    private static final Comparator<Attendance> BY_START = Comparator.comparingLong(Attendance::getStartMillis);
+
+    private final File file;
+
+    // Event start to duration, and each member's attendance sorted by event start
+    private final TreeMap<Long, Integer> events = new TreeMap<>();
+    private final Map<String, List<Attendance>> byMember = new HashMap<>();
+    private boolean loaded;
+
+    AttendanceHistory(File file) {
+        this.file = file;
+    }
+
+    synchronized void ingest(long startMillis, int durationTicks, List<Record> records) {
+        load();
+
+        // A resumed event keeps its start, it can only be recorded once
+        if (events.containsKey(startMillis))
+            return;
+
+        final StringBuilder lines = new StringBuilder();
+        lines.append("E\t").append(startMillis).append('\t').append(durationTicks).append('\n');
+
+        for (Record record : records) {
+            lines.append("M\t").append(startMillis)
+                    .append('\t').append(record.ticksTotal)
+                    .append('\t').append(record.ticksLate)
+                    .append('\t');
+            escape(lines, record.key);
+            lines.append('\t');
+            escape(lines, record.name);
+            lines.append('\n');
+        }
+
+        final File dir = file.getParentFile();
+        if (!dir.exists()) {
+            dir.mkdirs();
+        }
+
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(file, true), StandardCharsets.UTF_8)) {
+            out.write(lines.toString());
+        } catch (IOException e) {
+            log.error("Failed to record event history", e);
+            return;
+        }
+
+        events.put(startMillis, durationTicks);
+        for (Record record : records) {
+            index(record.key, new Attendance(startMillis, record.name, record.ticksTotal, record.ticksLate));
+        }
+    }
+
+    synchronized int eventCount(long from, long to) {
+        load();
+        return events.subMap(from, true, to, true).size();
+    }
+
+    // Events a member attended between from and to, for at least minTicks
+    synchronized List<Attendance> memberHistory(String key, long from, long to, int minTicks) {
+        load();
+
+        final List<Attendance> attendances = byMember.get(key);
+        if (attendances == null)
+            return Collections.emptyList();
+
+        final List<Attendance> result = new ArrayList<>();
+        for (int i = lowerBound(attendances, from); i < attendances.size(); ++i) {
+            final Attendance attendance = attendances.get(i);
+            if (attendance.startMillis > to)
+                break;
+
+            if (attendance.ticksTotal >= minTicks)
+                result.add(attendance);
+        }
+        return result;
+    }
+
+    // Every member who attended at least one event between from and to, most events first
+    synchronized List<MemberSummary> summary(long from, long to, int minTicks) {
+        load();
+
+        final List<MemberSummary> result = new ArrayList<>();
+        for (List<Attendance> attendances : byMember.values()) {
+            int count = 0;
+            int ticksTotal = 0;
+            String name = null;
+
+            for (int i = lowerBound(attendances, from); i < attendances.size(); ++i) {
+                final Attendance attendance = attendances.get(i);
+                if (attendance.startMillis > to)
+                    break;
+
+                if (attendance.ticksTotal >= minTicks) {
+                    ++count;
+                    ticksTotal += attendance.ticksTotal;
+                    name = attendance.name;
+                }
+            }
+
+            if (count > 0)
+                result.add(new MemberSummary(name, count, ticksTotal));
+        }
+
+        result.sort(Comparator.comparingInt(MemberSummary::getEvents).reversed()
+                .thenComparing(MemberSummary::getName, String.CASE_INSENSITIVE_ORDER));
+        return result;
+    }
+
+    private static int lowerBound(List<Attendance> attendances, long from) {
+        int lo = 0;
+        int hi = attendances.size();
+        while (lo < hi) {
+            final int mid = (lo + hi) >>> 1;
+            if (attendances.get(mid).startMillis < from)
+                lo = mid + 1;
+            else
+                hi = mid;
+        }
+        return lo;
+    }
+
+    private static void escape(StringBuilder sb, String value) {
+        for (int i = 0; i < value.length(); ++i) {
+            final char c = value.charAt(i);
+            switch (c) {
+                case '\\':
+                    sb.append("\\\\");
+                    break;
+                case '\t':
+                    sb.append("\\t");
+                    break;
+                case '\n':
+                    sb.append("\\n");
+                    break;
+                case '\r':
+                    sb.append("\\r");
+                    break;
+                default:
+                    sb.append(c);
+            }
+        }
+    }
+
+    private static String unescape(String value) {
+        if (value.indexOf('\\') < 0)
+            return value;
+
+        final StringBuilder sb = new StringBuilder(value.length());
+        for (int i = 0; i < value.length(); ++i) {
+            char c = value.charAt(i);
+            if (c == '\\' && i + 1 < value.length()) {
+                c = value.charAt(++i);
+                if (c == 't')
+                    c = '\t';
+                else if (c == 'n')
+                    c = '\n';
+                else if (c == 'r')
+                    c = '\r';
+            }
+            sb.append(c);
+        }
+        return sb.toString();
+    }
+
+    private void index(String key, Attendance attendance) {
+        final List<Attendance> attendances = byMember.computeIfAbsent(key, k -> new ArrayList<>());
+        attendances.add(attendance);
+
+        // Usually already in order, a resumed event can stop after a newer one
+        final int size = attendances.size();
+        if (size > 1 && attendances.get(size - 2).startMillis > attendance.startMillis)
+            attendances.sort(BY_START);
+    }
+
+    private void load() {
+        if (loaded)
+            return;
+
+        loaded = true;
+
+        if (!file.exists())
+            return;
+
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                final String[] fields = line.split("\t", 6);
+
+                try {
+                    if (fields[0].equals("E") && fields.length == 3) {
+                        events.put(Long.parseLong(fields[1]), Integer.parseInt(fields[2]));
+                    } else if (fields[0].equals("M") && fields.length == 6) {
+                        byMember.computeIfAbsent(unescape(fields[4]), k -> new ArrayList<>()).add(new Attendance(
+                                Long.parseLong(fields[1]),
+                                unescape(fields[5]),
+                                Integer.parseInt(fields[2]),
+                                Integer.parseInt(fields[3])));
+                    }
+                } catch (NumberFormatException e) {
+                    // Skip the malformed line, keep what we can
+                }
+            }
+        } catch (IOException e) {
+            log.error("Failed to read event history", e);
+        }
+
+        // Events are appended as they stop, which is not always in start order
+        for (List<Attendance> attendances : byMember.values()) {
+            attendances.sort(BY_START);
+        }
+    }
+}
@@ -0,0 +1,256 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * Attendance seen by one client, in a form that merges with the snapshots
+ * of other clients at the same event, ex: scouts on other worlds. Members
+ * are kept as presence intervals, merging aligns them on the wall-clock
+ * start of each snapshot and takes their union, so a member seen by two
+ * clients at once is only counted once. A merged snapshot can be merged
+ * again.
+ *
+ * Ticks are relative to the event start, fields are tab separated:
+ * <pre>
+ * V  version
+ * S  startMillis  durationTicks  world      event
+ * M  key  name  start,end,start,end...      member and their intervals
+ * </pre>
+ */
+@Value
+class AttendanceSnapshot {
+    static final String FILE_SUFFIX = ".snapshot";
+
+    private static final int VERSION = 1;
+    // Worlds of merged snapshots aren't kept
+    static final int ANY_WORLD = 0;
+
+    @Value
+    static class Member {
+        String key;
+        String name;
+        // start, end pairs, sorted and not overlapping
+        int[] intervals;
+    }
+
+    long startedAtMillis;
+    int durationTicks;
+    int world;
+    List<Member> members;
+
+    void write(Writer out) throws IOException {
+        final StringBuilder sb = new StringBuilder(64);
+        out.write("V\t" + VERSION + "\n");
+        out.write("S\t" + startedAtMillis + "\t" + durationTicks + "\t" + world + "\n");
+
+        for (Member member : members) {
+            sb.setLength(0);
+            sb.append("M\t").append(member.key).append('\t').append(member.name).append('\t');
+            for (int i = 0; i < member.intervals.length; ++i) {
+                if (i > 0)
+                    sb.append(',');
+                sb.append(member.intervals[i]);
+            }
+            sb.append('\n');
+            out.write(sb.toString());
+        }
+    }
+
+    static AttendanceSnapshot read(Reader reader) throws IOException {
+        final BufferedReader in = reader instanceof BufferedReader ? (BufferedReader) reader : new BufferedReader(reader);
+        final List<Member> members = new ArrayList<>();
+        long startedAtMillis = -1;
+        int durationTicks = 0;
+        int world = ANY_WORLD;
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            final String[] fields = line.split("\t", -1);
+
+            switch (fields[0]) {
+                case "V":
+                    if (fields.length < 2 || Integer.parseInt(fields[1]) > VERSION)
+                        throw new IOException("Unsupported snapshot version: " + line);
+                    break;
+                case "S":
+                    if (fields.length < 4)
+                        throw new IOException("Malformed snapshot header: " + line);
+                    startedAtMillis = Long.parseLong(fields[1]);
+                    durationTicks = Integer.parseInt(fields[2]);
+                    world = Integer.parseInt(fields[3]);
+                    break;
+                case "M":
+                    if (fields.length < 4)
+                        throw new IOException("Malformed snapshot member: " + line);
+                    members.add(new Member(fields[1], fields[2], parseIntervals(fields[3])));
+                    break;
+                default:
+                    // Blank lines, and lines of later versions
+                    break;
+            }
+        }
+
+        if (startedAtMillis < 0)
+            throw new IOException("Not an attendance snapshot");
+
+        return new AttendanceSnapshot(startedAtMillis, durationTicks, world, members);
+    }
+
+    /**
+     * One snapshot starting with the earliest of them. Ticks are aligned on
+     * wall-clock time, 600ms per tick, and members are matched by key.
+     */
+    static AttendanceSnapshot merge(List<AttendanceSnapshot> snapshots) {
+        if (snapshots.isEmpty())
+            throw new IllegalArgumentException("Nothing to merge");
+
+        long startedAtMillis = Long.MAX_VALUE;
+        for (AttendanceSnapshot snapshot : snapshots) {
+            startedAtMillis = Math.min(startedAtMillis, snapshot.startedAtMillis);
+        }
+
+        // Intervals of each member from every snapshot, as start << 32 | end so they sort by start
+        final Map<String, Integer> slotsByKey = new HashMap<>();
+        final List<String> keys = new ArrayList<>();
+        final List<String> names = new ArrayList<>();
+        long[][] intervals = new long[64][];
+        int[] counts = new int[64];
+        int durationTicks = 0;
+
+        for (AttendanceSnapshot snapshot : snapshots) {
+            final int offset = (int) Math.round((snapshot.startedAtMillis - startedAtMillis) / 600.0);
+            durationTicks = Math.max(durationTicks, offset + snapshot.durationTicks);
+
+            for (Member member : snapshot.members) {
+                Integer slot = slotsByKey.get(member.key);
+                if (slot == null) {
+                    slot = keys.size();
+                    slotsByKey.put(member.key, slot);
+                    keys.add(member.key);
+                    names.add(member.name);
+
+                    if (slot == intervals.length) {
+                        intervals = Arrays.copyOf(intervals, slot * 2);
+                        counts = Arrays.copyOf(counts, slot * 2);
+                    }
+                    intervals[slot] = new long[Math.max(4, member.intervals.length / 2)];
+                }
+
+                for (int i = 0; i < member.intervals.length; i += 2) {
+                    if (counts[slot] == intervals[slot].length)
+                        intervals[slot] = Arrays.copyOf(intervals[slot], counts[slot] * 2);
+
+                    intervals[slot][counts[slot]++] = (long) (member.intervals[i] + offset) << 32
+                            | (member.intervals[i + 1] + offset) & 0xFFFFFFFFL;
+                }
+            }
+        }
+
+        final List<Member> members = new ArrayList<>(keys.size());
+        for (int slot = 0; slot < keys.size(); ++slot) {
+            members.add(new Member(keys.get(slot), names.get(slot), union(intervals[slot], counts[slot])));
+        }
+        members.sort((a, b) -> a.key.compareTo(b.key));
+
+        return new AttendanceSnapshot(startedAtMillis, durationTicks, ANY_WORLD, members);
+    }
+
+    /**
+     * The snapshot as an export, totals and lateness come from the intervals.
+     * Every interval is a join and a leave.
+     */
+    AttendanceExport toExport(int presentThreshold, int lateThreshold) {
+        final List<AttendanceExport.Row> rows = new ArrayList<>(members.size());
+
+        for (Member member : members) {
+            int ticksTotal = 0;
+            for (int i = 0; i < member.intervals.length; i += 2) {
+                ticksTotal += member.intervals[i + 1] - member.intervals[i];
+            }
+
+            final int ticksLate = member.intervals.length > 0 ? member.intervals[0] : 0;
+            final int count = member.intervals.length / 2;
+            rows.add(new AttendanceExport.Row(member.name, ticksTotal, ticksLate,
+                    ClanEventAttendancePlugin.ticksToSeconds(ticksLate) > lateThreshold,
+                    ClanEventAttendancePlugin.ticksToSeconds(ticksTotal) >= presentThreshold,
+                    count, count, member.intervals));
+        }
+
+        return new AttendanceExport(startedAtMillis, durationTicks, presentThreshold, lateThreshold, rows);
+    }
+
+    // Sorts the packed intervals and joins the ones that overlap or touch
+    private static int[] union(long[] packed, int count) {
+        Arrays.sort(packed, 0, count);
+
+        final int[] merged = new int[count * 2];
+        int size = 0;
+
+        for (int i = 0; i < count; ++i) {
+            final int start = (int) (packed[i] >> 32);
+            final int end = (int) packed[i];
+            if (end <= start)
+                continue;
+
+            if (size > 0 && start <= merged[size - 1]) {
+                merged[size - 1] = Math.max(merged[size - 1], end);
+            } else {
+                merged[size++] = start;
+                merged[size++] = end;
+            }
+        }
+
+        return Arrays.copyOf(merged, size);
+    }
+
+    private static int[] parseIntervals(String text) throws IOException {
+        if (text.isEmpty())
+            return new int[0];
+
+        final String[] values = text.split(",");
+        if (values.length % 2 != 0)
+            throw new IOException("Odd number of interval bounds: " + text);
+
+        final int[] intervals = new int[values.length];
+        for (int i = 0; i < values.length; ++i) {
+            intervals[i] = Integer.parseInt(values[i]);
+        }
+        return intervals;
+    }
+}
@@ -0,0 +1,221 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Attendance of every member seen during an event. Members get a dense id
+ * when added, and their counters live in primitive arrays indexed by it, so
+ * updating them never allocates. Only the key and display name are kept,
+ * no client objects. The arrays keep their capacity across events.
+ *
+ * Ids are in the order members were added, {@link #idAt} walks them sorted
+ * by key, the order the attendance list is displayed in. Not thread safe,
+ * only used from the client thread.
+ */
+class AttendanceStore {
+    static final int NONE = -1;
+
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> idsByKey = new HashMap<>();
+
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private int[] ticksLate = new int[INITIAL_CAPACITY];
+    private int[] tickActivityStarted = new int[INITIAL_CAPACITY];
+    // Closed presence intervals only, see ticksTotalAt
+    private int[] ticksTotal = new int[INITIAL_CAPACITY];
+    private int[] joins = new int[INITIAL_CAPACITY];
+    private int[] leaves = new int[INITIAL_CAPACITY];
+    private boolean[] present = new boolean[INITIAL_CAPACITY];
+    // Ids sorted by key
+    private int[] sorted = new int[INITIAL_CAPACITY];
+    private int size;
+
+    int size() {
+        return size;
+    }
+
+    boolean isEmpty() {
+        return size == 0;
+    }
+
+    int id(String key) {
+        final Integer id = idsByKey.get(key);
+        return id == null ? NONE : id;
+    }
+
+    // Id of the member at index in key order
+    int idAt(int index) {
+        return sorted[index];
+    }
+
+    /**
+     * Adds an absent member, or returns the id they already have.
+     */
+    int add(String key, String name, int ticksLate) {
+        final int existing = id(key);
+        if (existing != NONE)
+            return existing;
+
+        if (size == keys.length)
+            grow();
+
+        final int id = size++;
+        keys[id] = key;
+        names[id] = name;
+        this.ticksLate[id] = ticksLate;
+        tickActivityStarted[id] = 0;
+        ticksTotal[id] = 0;
+        joins[id] = 0;
+        leaves[id] = 0;
+        present[id] = false;
+        idsByKey.put(key, id);
+
+        // Adds are rare next to renders, keep the key order up to date here
+        insertSorted(id, key);
+        return id;
+    }
+
+    /**
+     * Adds an absent member with the totals of a previous session, ex: when
+     * resuming an event.
+     */
+    int restore(String key, String name, int ticksLate, int ticksTotal, int joins, int leaves) {
+        final int id = add(key, name, ticksLate);
+        this.ticksTotal[id] = ticksTotal;
+        this.joins[id] = joins;
+        this.leaves[id] = leaves;
+        return id;
+    }
+
+    // Adds the ticks since the member became present to their total
+    void accumulate(int id, int tick) {
+        if (!present[id])
+            return;
+
+        ticksTotal[id] += tick - tickActivityStarted[id];
+        tickActivityStarted[id] = tick;
+    }
+
+    void pause(int id) {
+        present[id] = false;
+        ++leaves[id];
+    }
+
+    /**
+     * Marks the member present from tick on.
+     *
+     * @return false if they already were
+     */
+    boolean unpause(int id, int tick) {
+        if (present[id])
+            return false;
+
+        present[id] = true;
+        ++joins[id];
+        tickActivityStarted[id] = tick;
+        return true;
+    }
+
+    // Total including the open interval if the member is still present
+    int ticksTotalAt(int id, int tick) {
+        if (!present[id])
+            return ticksTotal[id];
+
+        return ticksTotal[id] + tick - tickActivityStarted[id];
+    }
+
+    String key(int id) {
+        return keys[id];
+    }
+
+    String name(int id) {
+        return names[id];
+    }
+
+    int ticksLate(int id) {
+        return ticksLate[id];
+    }
+
+    int ticksTotal(int id) {
+        return ticksTotal[id];
+    }
+
+    boolean isPresent(int id) {
+        return present[id];
+    }
+
+    int joins(int id) {
+        return joins[id];
+    }
+
+    int leaves(int id) {
+        return leaves[id];
+    }
+
+    void clear() {
+        idsByKey.clear();
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(names, 0, size, null);
+        size = 0;
+    }
+
+    private void insertSorted(int id, String key) {
+        int low = 0;
+        int high = id - 1;
+
+        while (low <= high) {
+            final int mid = (low + high) >>> 1;
+            if (keys[sorted[mid]].compareTo(key) < 0)
+                low = mid + 1;
+            else
+                high = mid - 1;
+        }
+
+        System.arraycopy(sorted, low, sorted, low + 1, id - low);
+        sorted[low] = id;
+    }
+
+    private void grow() {
+        final int capacity = keys.length * 2;
+        keys = Arrays.copyOf(keys, capacity);
+        names = Arrays.copyOf(names, capacity);
+        ticksLate = Arrays.copyOf(ticksLate, capacity);
+        tickActivityStarted = Arrays.copyOf(tickActivityStarted, capacity);
+        ticksTotal = Arrays.copyOf(ticksTotal, capacity);
+        joins = Arrays.copyOf(joins, capacity);
+        leaves = Arrays.copyOf(leaves, capacity);
+        present = Arrays.copyOf(present, capacity);
+        sorted = Arrays.copyOf(sorted, capacity);
+    }
+}
@@ -0,0 +1,155 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import javax.swing.table.AbstractTableModel;
+import lombok.Value;
+
+/**
+ * Table model over snapshots of the attendance, one row per member id, so a
+ * row keeps its index for the whole event. Snapshots are built on the client
+ * thread and applied on the EDT, where only rows whose values changed fire
+ * update events.
+ */
+class AttendanceTableModel extends AbstractTableModel {
+    static final int NAME_COLUMN = 0;
+    static final int TIME_COLUMN = 1;
+    static final int LATE_COLUMN = 2;
+
+    private static final String[] COLUMN_NAMES = { "Name", "Time", "Late" };
+
+    /**
+     * The attendance at one tick, arrays indexed by member id. Never
+     * modified once built.
+     */
+    @Value
+    static class Rows {
+        static final Rows EMPTY = new Rows(0, new String[0], new int[0], new int[0], new boolean[0], new boolean[0], new boolean[0], false);
+
+        int size;
+        String[] names;
+        int[] seconds;
+        int[] lateSeconds;
+        boolean[] late;
+        boolean[] present;
+        boolean[] aboveThreshold;
+        boolean eventRunning;
+    }
+
+    private Rows rows = Rows.EMPTY;
+
+    void update(Rows next) {
+        final Rows previous = rows;
+        rows = next;
+
+        // A new event, ids start over
+        if (next.size < previous.size) {
+            fireTableRowsDeleted(next.size, previous.size - 1);
+        }
+
+        // Every row changes color when the event stops or starts
+        final boolean recolor = next.eventRunning != previous.eventRunning;
+        final int common = Math.min(previous.size, next.size);
+        int first = -1;
+
+        for (int row = 0; row < common; ++row) {
+            if (recolor || changed(previous, next, row)) {
+                if (first < 0)
+                    first = row;
+                continue;
+            }
+
+            if (first >= 0) {
+                fireTableRowsUpdated(first, row - 1);
+                first = -1;
+            }
+        }
+
+        if (first >= 0) {
+            fireTableRowsUpdated(first, common - 1);
+        }
+
+        if (next.size > previous.size) {
+            fireTableRowsInserted(previous.size, next.size - 1);
+        }
+    }
+
+    boolean isPresent(int row) {
+        return rows.present[row];
+    }
+
+    boolean isAboveThreshold(int row) {
+        return rows.aboveThreshold[row];
+    }
+
+    boolean isEventRunning() {
+        return rows.eventRunning;
+    }
+
+    @Override
+    public int getRowCount() {
+        return rows.size;
+    }
+
+    @Override
+    public int getColumnCount() {
+        return COLUMN_NAMES.length;
+    }
+
+    @Override
+    public String getColumnName(int column) {
+        return COLUMN_NAMES[column];
+    }
+
+    @Override
+    public Class<?> getColumnClass(int column) {
+        return column == NAME_COLUMN ? String.class : Integer.class;
+    }
+
+    // Times in seconds, -1 for members who weren't late
+    @Override
+    public Object getValueAt(int row, int column) {
+        switch (column) {
+            case NAME_COLUMN:
+                return rows.names[row];
+            case TIME_COLUMN:
+                return rows.seconds[row];
+            default:
+                return rows.late[row] ? rows.lateSeconds[row] : -1;
+        }
+    }
+
+    private static boolean changed(Rows previous, Rows next, int row) {
+        return previous.names[row] != next.names[row]
+                || previous.seconds[row] != next.seconds[row]
+                || previous.lateSeconds[row] != next.lateSeconds[row]
+                || previous.late[row] != next.late[row]
+                || previous.present[row] != next.present[row]
+                || previous.aboveThreshold[row] != next.aboveThreshold[row];
+    }
+}
@@ -0,0 +1,221 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import lombok.Value;
+
+/**
+ * The plain text attendance list, as copied to the clipboard. Built on the
+ * client thread from a snapshot of the attendance, the text itself is only
+ * formatted when asked for, from any thread. It reads the same as the panel
+ * list with its markup removed.
+ */
+@Value
+class AttendanceText {
+    private static final String LATE_HEADER = String.format("%-12s | %-6s | %-6s", "Name", "Time", "Late");
+    private static final String HEADER = String.format("%-12s | %-6s", "Name", "Time");
+    private static final String SEPARATOR = "------------------------------";
+    private static final String CODE_BLOCK = "```";
+
+    // null unless the list is final
+    String prefix;
+    String suffix;
+    boolean codeBlock;
+    int durationSeconds;
+    int presentThreshold;
+    boolean lateMembers;
+
+    // In list order
+    String[] names;
+    int[] seconds;
+    boolean[] late;
+    int[] lateSeconds;
+
+    // Client thread only, reads the attendance at tick
+    static AttendanceText of(AttendanceStore attendance, int tick, int durationSeconds,
+                             int presentThreshold, int lateThreshold, boolean lateMembers,
+                             String prefix, String suffix, boolean codeBlock) {
+        final int size = attendance.size();
+        final String[] names = new String[size];
+        final int[] seconds = new int[size];
+        final int[] lateSeconds = new int[size];
+        final boolean[] late = new boolean[size];
+
+        for (int i = 0; i < size; ++i) {
+            final int id = attendance.idAt(i);
+            names[i] = attendance.name(id);
+            seconds[i] = ClanEventAttendancePlugin.ticksToSeconds(attendance.ticksTotalAt(id, tick));
+            lateSeconds[i] = ClanEventAttendancePlugin.ticksToSeconds(attendance.ticksLate(id));
+            late[i] = lateSeconds[i] > lateThreshold;
+        }
+
+        return new AttendanceText(prefix, suffix, codeBlock, durationSeconds, presentThreshold, lateMembers,
+                names, seconds, late, lateSeconds);
+    }
+
+    String text() {
+        final StringBuilder present = new StringBuilder();
+        final StringBuilder below = new StringBuilder();
+
+        for (int i = 0; i < names.length; ++i) {
+            final StringBuilder sb = seconds[i] < presentThreshold ? below : present;
+            AttendanceFormatter.appendCells(sb, names[i], seconds[i], lateMembers, late[i], lateSeconds[i]);
+            sb.append('\n');
+        }
+
+        final StringBuilder text = new StringBuilder(present.length() + below.length() + 256);
+
+        if (prefix != null) {
+            text.append(prefix).append("\n\n");
+        }
+
+        text.append("Event Duration: ");
+        AttendanceFormatter.appendTime(text, durationSeconds);
+        text.append("\n\n");
+
+        if (codeBlock)
+            text.append(CODE_BLOCK).append('\n');
+
+        if (present.length() > 0) {
+            text.append("Present Members\n");
+            text.append(SEPARATOR).append('\n');
+            text.append(lateMembers ? LATE_HEADER : HEADER).append('\n');
+            text.append(present);
+        }
+
+        if (below.length() > 0) {
+            if (present.length() > 0)
+                text.append('\n');
+
+            text.append("Below Threshold (");
+            AttendanceFormatter.appendTime(text, presentThreshold);
+            text.append(")\n");
+            text.append(SEPARATOR).append('\n');
+            text.append(lateMembers ? LATE_HEADER : HEADER).append('\n');
+            text.append(below);
+        }
+
+        if (codeBlock)
+            text.append(CODE_BLOCK);
+
+        if (suffix != null) {
+            text.append("\n\n").append(suffix);
+        }
+
+        return text.toString();
+    }
+
+    /**
+     * The text split into parts of at most maxChars, ex: 2000 for a Discord
+     * message. Parts end on whole lines, a code block cut in two is closed
+     * and opened again around the cut. A single line longer than maxChars
+     * gets a part of its own.
+     */
+    List<String> chunks(int maxChars) {
+        return split(text(), maxChars);
+    }
+
+    static List<String> split(String text, int maxChars) {
+        if (maxChars <= 0 || text.length() <= maxChars)
+            return Collections.singletonList(text);
+
+        final List<String> chunks = new ArrayList<>();
+        final StringBuilder chunk = new StringBuilder(maxChars);
+        boolean inCodeBlock = false;
+        // Length of the chunk before any of its own lines, ex: a reopened code block
+        int emptyLength = 0;
+        // Length of the chunk before its last line when that line opened a code block, else -1
+        int openedAt = -1;
+        int start = 0;
+
+        while (start <= text.length()) {
+            int end = text.indexOf('\n', start);
+            if (end < 0)
+                end = text.length();
+
+            final boolean fence = text.startsWith(CODE_BLOCK, start) && end - start == CODE_BLOCK.length();
+            final boolean inCodeBlockAfter = fence != inCodeBlock;
+            final int needed = (chunk.length() > 0 ? 1 : 0) + end - start + (inCodeBlockAfter ? CODE_BLOCK.length() + 1 : 0);
+
+            // A blank line that doesn't fit would end up at the edge of a part, where it's trimmed anyway
+            if (end == start && chunk.length() + needed > maxChars) {
+                start = end + 1;
+                continue;
+            }
+
+            // A closing fence takes the place of the one a cut would add, it never needs one
+            final boolean closing = fence && inCodeBlock;
+
+            if (!closing && chunk.length() > emptyLength && chunk.length() + needed > maxChars) {
+                if (openedAt >= 0) {
+                    // The code block has no lines in this part yet, it opens in the next one instead
+                    chunk.setLength(openedAt);
+                } else if (inCodeBlock) {
+                    chunk.append('\n').append(CODE_BLOCK);
+                }
+
+                if (chunk.length() > emptyLength)
+                    chunks.add(trimTrailingNewlines(chunk));
+
+                chunk.setLength(0);
+                if (inCodeBlock)
+                    chunk.append(CODE_BLOCK);
+                emptyLength = chunk.length();
+                openedAt = -1;
+            }
+
+            // No blank lines at the start of a part
+            if (end > start || chunk.length() > emptyLength) {
+                final int length = chunk.length();
+                if (chunk.length() > 0)
+                    chunk.append('\n');
+                chunk.append(text, start, end);
+                openedAt = fence && inCodeBlockAfter ? length : -1;
+            }
+
+            inCodeBlock = inCodeBlockAfter;
+            start = end + 1;
+        }
+
+        if (chunk.length() > emptyLength)
+            chunks.add(trimTrailingNewlines(chunk));
+
+        return chunks;
+    }
+
+    private static String trimTrailingNewlines(StringBuilder sb) {
+        int length = sb.length();
+        while (length > 0 && sb.charAt(length - 1) == '\n') {
+            --length;
+        }
+        return sb.substring(0, length);
+    }
+}
@@ -69,7 +69,17 @@ public interface ClanEventAttendanceConfig extends Config {
 		return 60 * 5;
 	}
 
-	@ConfigItem(keyName = "outputFormat", name = "Output Format", description = "What gets output to the user's clipboard when the copy button is pressed.", section = dataExportSection, position = 1)
+	@ConfigItem(keyName = "namedEvents", name = "Named Events", description = "Events that can run alongside the main one, each started from the panel. One per line: name, chat (clan, friends or both), time threshold and late threshold in seconds. ex: PvM trip, friends, 600, 120", section = generalSection, position = 4)
+	default String namedEvents() {
+		return "";
+	}
+
+	@ConfigItem(keyName = "eventArea", name = "Event Area", description = "Only counts members while they stand in this area. One entry per line: a region id, ex: 12850, or a rectangle of world points x1, y1, x2, y2 with an optional plane. Empty counts members anywhere around you.", section = generalSection, position = 5)
+	default String eventArea() {
+		return "";
+	}
+
+	@ConfigItem(keyName = "outputFormat", name = "Output Format", description = "What gets output to the user's clipboard when the copy button is pressed. CSV and JSON are also used for saved files. Timeline copies an image of when each member was present.", section = dataExportSection, position = 1)
 	default OutputFormat outputFormat() {
 		return OutputFormat.TEXT;
 	}
@@ -89,6 +99,12 @@ public interface ClanEventAttendanceConfig extends Config {
 		return "Thanks for coming!";
 	}
 
+	@ConfigItem(keyName = "copyChunkSize", name = "Copy Part Size", description = "Splits copied text lists into parts of at most this many characters, copied one per click. 2000 fits a Discord message. 0 copies the whole list at once.", section = dataExportSection, position = 5)
+	@Range(min = 0)
+	default int copyChunkSize() {
+		return 0;
+	}
+
 	@ConfigItem(keyName = "presentColor", name = "Present Color", description = "The color used for present members in attendance lists.", section = userInterfaceSection, position = 0)
 	default Color presentColor() {
 		return Color.green;
@@ -114,6 +130,23 @@ public interface ClanEventAttendanceConfig extends Config {
 		return true;
 	}
 
+	@ConfigItem(keyName = "panelRefreshRate", name = "Panel Refresh Rate", description = "How often the attendance list is redrawn while an event is running, in game ticks. The list is not redrawn while the panel is hidden.", section = userInterfaceSection, position = 3)
+	@Units(Units.TICKS)
+	@Range(min = 1)
+	default int panelRefreshRate() {
+		return 2;
+	}
+
+	@ConfigItem(keyName = "memberTable", name = "Member Table", description = "Shows the attendance as a table that can be sorted and filtered, instead of the text list. Copying still uses the output format.", section = userInterfaceSection, position = 4)
+	default boolean memberTable() {
+		return false;
+	}
+
+	@ConfigItem(keyName = "debugTimings", name = "Debug Timings", description = "Measures how long the plugin takes on the client thread and shows it in the panel, where it can be saved to a file.", section = userInterfaceSection, position = 5)
+	default boolean debugTimings() {
+		return false;
+	}
+
 	@ConfigItem(
 			keyName = "saveLocally",
 			name = "Save Locally",
@@ -132,4 +165,31 @@ public interface ClanEventAttendanceConfig extends Config {
 	)
 	@Units(Units.MINUTES)
 	default int autosaveInterval() { return 1; }
+
+	@ConfigItem(
+			keyName = "crashRecovery",
+			name = "Crash Recovery",
+			description = "Journals the running event in the .runelite folder and offers to resume it if the client closes mid-event.",
+			section = fileSaveSection,
+			position = 2
+	)
+	default boolean crashRecovery() { return false; }
+
+	@ConfigItem(
+			keyName = "attendanceHistory",
+			name = "Attendance History",
+			description = "Records every stopped event in a local history that can be searched from the panel.",
+			section = fileSaveSection,
+			position = 3
+	)
+	default boolean attendanceHistory() { return false; }
+
+	@ConfigItem(
+			keyName = "mergeSnapshots",
+			name = "Merge Snapshots",
+			description = "Saves a snapshot of each event, with or without Save Locally, which the panel can merge with the snapshots of other clients at the same event, ex: on other worlds. Members seen by several clients are only counted once.",
+			section = fileSaveSection,
+			position = 4
+	)
+	default boolean mergeSnapshots() { return false; }
 }
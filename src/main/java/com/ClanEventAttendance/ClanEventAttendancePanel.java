@@ -29,14 +29,21 @@ package com.ClanEventAttendance;
 
 import com.ClanEventAttendance.config.OutputFormat;
 import lombok.extern.slf4j.Slf4j;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.ui.ColorScheme;
 import net.runelite.client.ui.PluginPanel;
 
+import javax.inject.Inject;
 import javax.swing.*;
 import javax.swing.border.EmptyBorder;
+import javax.swing.filechooser.FileNameExtensionFilter;
 import java.awt.*;
 import java.awt.datatransfer.*;
 import java.awt.image.BufferedImage;
+import java.io.File;
+import java.util.Collections;
+import java.util.List;
+import java.util.function.Supplier;
 
 @Slf4j
 class ClanEventAttendancePanel extends PluginPanel {
@@ -46,10 +53,36 @@ class ClanEventAttendancePanel extends PluginPanel {
     private final JPanel topButtonsPanel = new JPanel();
     private final JPanel textPanel = new JPanel();
     private final JPanel bottomButtonsPanel = new JPanel();
+    private final JPanel southPanel = new JPanel();
+    private final JPanel namedEventsPanel = new JPanel();
+    private final JPanel timingsPanel = new JPanel();
+    private final JTextArea timingsText = new JTextArea();
+    private final JButton mergeButton = new JButton("Merge Snapshots");
+    // Named events, merging and timings, under the history
+    private final JPanel extrasPanel = new JPanel();
+    private final MemberTablePanel memberTablePanel = new MemberTablePanel();
+    private boolean memberTable;
+
+    // Parts of a text list split by copyChunkSize, copied one per click
+    private List<String> pendingChunks = Collections.emptyList();
+    private int nextChunk;
+    private boolean chunksEventRunning;
 
     private static final String BTN_START_TEXT = "Start Event";
     private static final String BTN_STOP_TEXT = "Stop Event";
     private static final String BTN_COPY_TEXT_TEXT = "Copy to Clipboard";
+    private static final String BTN_START_NAMED_TEXT = "Start";
+    private static final String BTN_STOP_NAMED_TEXT = "Stop";
+    private static final String BTN_COPY_NAMED_TEXT = "Copy";
+
+    @Inject
+    private RenderScheduler renderScheduler;
+
+    @Inject
+    private ClientThread clientThread;
+
+    @Inject
+    private HistoryPanel historyPanel;
 
     void init(ClanEventAttendanceConfig config, ClanEventAttendancePlugin plugin) {
         getParent().setLayout(new BorderLayout());
@@ -71,25 +104,61 @@ class ClanEventAttendancePanel extends PluginPanel {
         textPanel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
         textPanel.setBorder(new EmptyBorder(0, 5, 0, 5));
 
-        textLabel.setOpaque(false);
-        textLabel.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
-        textLabel.setBorder(new EmptyBorder(5, 5, 5, 5));
+        configureTextLabel(textLabel);
 
-        textPanel.add(textLabel, BorderLayout.NORTH);
+        // The table replaces the text list, which is then only built to be copied
+        memberTable = config.memberTable();
+        textPanel.removeAll();
+        if (memberTable) {
+            memberTablePanel.init(config);
+            textPanel.add(memberTablePanel, BorderLayout.NORTH);
+        } else {
+            textPanel.add(textLabel, BorderLayout.NORTH);
+        }
 
         bottomButtonsPanel.setLayout(new BorderLayout());
         bottomButtonsPanel.setBorder(new EmptyBorder(10, 0, 0, 0));
 
-        copyTextButton.setText(BTN_COPY_TEXT_TEXT);
+        clearChunks();
         copyTextButton.setFocusable(false);
 
+        southPanel.removeAll();
+        southPanel.setLayout(new BorderLayout());
+        southPanel.setOpaque(false);
+
         add(topButtonsPanel, BorderLayout.NORTH);
         add(textPanel, BorderLayout.CENTER);
+        add(southPanel, BorderLayout.SOUTH);
         if (config.topCopyButton()) {
             topButtonsPanel.add(copyTextButton, BorderLayout.SOUTH);
         } else {
             bottomButtonsPanel.add(copyTextButton, BorderLayout.CENTER);
-            add(bottomButtonsPanel, BorderLayout.SOUTH);
+            southPanel.add(bottomButtonsPanel, BorderLayout.NORTH);
+        }
+
+        if (config.attendanceHistory()) {
+            historyPanel.init(plugin.getHistory());
+            southPanel.add(historyPanel, BorderLayout.CENTER);
+        }
+
+        extrasPanel.removeAll();
+        extrasPanel.setLayout(new BoxLayout(extrasPanel, BoxLayout.Y_AXIS));
+        extrasPanel.setOpaque(false);
+        southPanel.add(extrasPanel, BorderLayout.SOUTH);
+
+        if (!plugin.getNamedEvents().isEmpty()) {
+            initNamedEvents(plugin);
+            extrasPanel.add(namedEventsPanel);
+        }
+
+        if (config.mergeSnapshots()) {
+            initMerge(plugin);
+            extrasPanel.add(mergeButton);
+        }
+
+        if (config.debugTimings()) {
+            initTimings(plugin);
+            extrasPanel.add(timingsPanel);
         }
 
         if (startButton.getActionListeners().length > 0) {
@@ -105,10 +174,10 @@ class ClanEventAttendancePanel extends PluginPanel {
                             null, new String[] { "Yes", "No" }, "No");
 
                     if (result == JOptionPane.YES_OPTION) {
-                        plugin.stopEvent();
+                        clientThread.invokeLater(plugin::stopEvent);
                     }
                 } else {
-                    plugin.stopEvent();
+                    clientThread.invokeLater(plugin::stopEvent);
                 }
             } else {
                 if (config.confirmationMessages()) {
@@ -118,45 +187,274 @@ class ClanEventAttendancePanel extends PluginPanel {
                             null, new String[] { "Yes", "No" }, "No");
 
                     if (result == JOptionPane.YES_OPTION) {
-                        plugin.startEvent();
+                        clientThread.invokeLater(plugin::startEvent);
                     }
                 } else {
-                    plugin.startEvent();
+                    clientThread.invokeLater(plugin::startEvent);
                 }
             }
         });
 
+        // Each part is copied by exactly one listener
+        if (copyTextButton.getActionListeners().length > 0) {
+            copyTextButton.removeActionListener(copyTextButton.getActionListeners()[0]);
+        }
+
         copyTextButton.addActionListener(e -> {
-            String text = textLabel.getText();
             Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
 
             if (config.outputFormat() == OutputFormat.PNG) {
-                BufferedImage image = createImage(textLabel);
-                TransferableImage trans = new TransferableImage(image);
+                if (memberTable) {
+                    // Built from the attendance data, on the thread that owns it
+                    clientThread.invokeLater(() -> {
+                        final String text = plugin.generateTextData(!plugin.eventRunning);
+                        SwingUtilities.invokeLater(() -> copyImage(clipboard, text));
+                    });
+                } else {
+                    copyImage(clipboard, textLabel.getText());
+                }
+            } else if (config.outputFormat() == OutputFormat.TEXT) {
+                if (nextChunk < pendingChunks.size()) {
+                    copyNextChunk(clipboard);
+                    return;
+                }
 
-                // Copied PNG image to clipboard
-                clipboard.setContents(trans, null);
-            } else {
-                text = text.replaceAll("(<br/>)", "\n");
-                text = text.replaceAll("<[^>]*>", "");
-                StringSelection stringSelection = new StringSelection(text);
+                final int chunkSize = config.copyChunkSize();
+
+                // Snapshot the attendance data on the thread that owns it, the text is only formatted when pasted
+                clientThread.invokeLater(() -> {
+                    final AttendanceText snapshot = plugin.textSnapshot(!plugin.eventRunning);
+                    final boolean eventRunning = plugin.eventRunning;
+
+                    if (chunkSize <= 0) {
+                        SwingUtilities.invokeLater(() -> clipboard.setContents(new LazyTextSelection(snapshot::text), null));
+                        return;
+                    }
 
-                // Copied text to clipboard
-                clipboard.setContents(stringSelection, null);
+                    final List<String> chunks = snapshot.chunks(chunkSize);
+                    SwingUtilities.invokeLater(() -> {
+                        pendingChunks = chunks;
+                        nextChunk = 0;
+                        chunksEventRunning = eventRunning;
+                        copyNextChunk(clipboard);
+                    });
+                });
+            } else if (config.outputFormat() == OutputFormat.TIMELINE) {
+                // Drawn from the attendance data, on the thread that owns it, then copied on the EDT
+                clientThread.invokeLater(() -> {
+                    final BufferedImage image = plugin.renderTimeline();
+                    SwingUtilities.invokeLater(() -> clipboard.setContents(new TransferableImage(image), null));
+                });
+            } else if (config.outputFormat() == OutputFormat.CSV || config.outputFormat() == OutputFormat.JSON) {
+                final OutputFormat format = config.outputFormat();
+
+                // Built from the attendance data, on the thread that owns it, then copied on the EDT
+                clientThread.invokeLater(() -> {
+                    final String data = plugin.exportData(format);
+                    SwingUtilities.invokeLater(() -> clipboard.setContents(new StringSelection(data), null));
+                });
             }
         });
 
-        updatePanel(config, plugin);
+        updatePanel(config, plugin.eventRunning);
+    }
+
+    @Override
+    public void onActivate() {
+        clientThread.invoke(() -> renderScheduler.setPanelVisible(true));
+    }
+
+    @Override
+    public void onDeactivate() {
+        clientThread.invoke(() -> renderScheduler.setPanelVisible(false));
     }
 
     void setText(String data) {
         textLabel.setText(data);
     }
 
-    void updatePanel(ClanEventAttendanceConfig config, ClanEventAttendancePlugin plugin) {
+    void setRows(AttendanceTableModel.Rows rows) {
+        memberTablePanel.setRows(rows);
+    }
+
+    // A start/stop and a copy button per named event, they run alongside the main one
+    private void initNamedEvents(ClanEventAttendancePlugin plugin) {
+        namedEventsPanel.removeAll();
+        namedEventsPanel.setLayout(new GridLayout(0, 1, 0, 5));
+        namedEventsPanel.setBorder(new EmptyBorder(10, 0, 0, 0));
+        namedEventsPanel.setOpaque(false);
+
+        for (EventTracker.Definition definition : plugin.getNamedEvents()) {
+            final String name = definition.getName();
+
+            final JLabel label = new JLabel(name);
+            label.setToolTipText(name + " (" + definition.getFilter() + ")");
+
+            final JButton toggleButton = new JButton(plugin.isNamedEventRunning(name) ? BTN_STOP_NAMED_TEXT : BTN_START_NAMED_TEXT);
+            toggleButton.setFocusable(false);
+            toggleButton.addActionListener(e -> clientThread.invokeLater(() -> {
+                if (plugin.isNamedEventRunning(name))
+                    plugin.stopNamedEvent(name);
+                else
+                    plugin.startNamedEvent(name);
+
+                final boolean running = plugin.isNamedEventRunning(name);
+                SwingUtilities.invokeLater(() -> toggleButton.setText(running ? BTN_STOP_NAMED_TEXT : BTN_START_NAMED_TEXT));
+            }));
+
+            final JButton copyButton = new JButton(BTN_COPY_NAMED_TEXT);
+            copyButton.setFocusable(false);
+            copyButton.addActionListener(e -> {
+                Clipboard clipboard = Toolkit.getDefaultToolkit().getSystemClipboard();
+
+                // Snapshot the attendance data on the thread that owns it, then copy on the EDT
+                clientThread.invokeLater(() -> {
+                    final AttendanceText snapshot = plugin.namedEventText(name);
+                    if (snapshot != null)
+                        SwingUtilities.invokeLater(() -> clipboard.setContents(new LazyTextSelection(snapshot::text), null));
+                });
+            });
+
+            final JPanel buttons = new JPanel(new GridLayout(1, 2, 5, 0));
+            buttons.setOpaque(false);
+            buttons.add(toggleButton);
+            buttons.add(copyButton);
+
+            final JPanel row = new JPanel(new BorderLayout(5, 0));
+            row.setOpaque(false);
+            row.add(label, BorderLayout.CENTER);
+            row.add(buttons, BorderLayout.EAST);
+            namedEventsPanel.add(row);
+        }
+    }
 
-        startButton.setText(plugin.eventRunning ? BTN_STOP_TEXT : BTN_START_TEXT);
-        copyTextButton.setEnabled(!config.blockCopyButton() || !plugin.eventRunning);
+    // Snapshots of other clients at the same event, picked from the attendance folder
+    private void initMerge(ClanEventAttendancePlugin plugin) {
+        mergeButton.setFocusable(false);
+        mergeButton.setAlignmentX(Component.CENTER_ALIGNMENT);
+        mergeButton.setToolTipText("Merges the snapshots saved by several clients into one list");
+
+        if (mergeButton.getActionListeners().length > 0) {
+            mergeButton.removeActionListener(mergeButton.getActionListeners()[0]);
+        }
+
+        mergeButton.addActionListener(e -> {
+            final JFileChooser chooser = new JFileChooser(ClanEventAttendancePlugin.EVENT_DIR);
+            chooser.setMultiSelectionEnabled(true);
+            chooser.setFileFilter(new FileNameExtensionFilter("Attendance snapshots", AttendanceSnapshot.FILE_SUFFIX.substring(1)));
+
+            if (chooser.showOpenDialog(this) != JFileChooser.APPROVE_OPTION || chooser.getSelectedFiles().length == 0)
+                return;
+
+            mergeButton.setEnabled(false);
+            plugin.mergeSnapshots(chooser.getSelectedFiles(), message -> {
+                mergeButton.setEnabled(true);
+                JOptionPane.showMessageDialog(this, message, "Merge Snapshots", JOptionPane.INFORMATION_MESSAGE);
+            });
+        });
+    }
+
+    // Client thread timings, refreshed on demand so the panel doesn't add to them
+    private void initTimings(ClanEventAttendancePlugin plugin) {
+        timingsPanel.removeAll();
+        timingsPanel.setLayout(new BorderLayout(0, 5));
+        timingsPanel.setBorder(new EmptyBorder(10, 0, 0, 0));
+        timingsPanel.setOpaque(false);
+
+        timingsText.setEditable(false);
+        timingsText.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 10));
+        timingsText.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        timingsText.setText("");
+
+        // Wider than the panel, scroll sideways
+        final JScrollPane scrollPane = new JScrollPane(timingsText,
+                ScrollPaneConstants.VERTICAL_SCROLLBAR_NEVER, ScrollPaneConstants.HORIZONTAL_SCROLLBAR_AS_NEEDED);
+
+        final JButton refreshButton = new JButton("Refresh");
+        refreshButton.setFocusable(false);
+        refreshButton.addActionListener(e -> clientThread.invokeLater(() -> {
+            final String report = plugin.timingReport();
+            SwingUtilities.invokeLater(() -> timingsText.setText(report));
+        }));
+
+        final JButton resetButton = new JButton("Reset");
+        resetButton.setFocusable(false);
+        resetButton.addActionListener(e -> clientThread.invokeLater(() -> {
+            plugin.clearTimings();
+            final String report = plugin.timingReport();
+            SwingUtilities.invokeLater(() -> timingsText.setText(report));
+        }));
+
+        final JButton saveButton = new JButton("Save");
+        saveButton.setFocusable(false);
+        saveButton.setToolTipText("Saves the timings next to the attendance files");
+        saveButton.addActionListener(e -> clientThread.invokeLater(() -> {
+            final String report = plugin.timingReport();
+            final File file = plugin.dumpTimings();
+            SwingUtilities.invokeLater(() -> {
+                timingsText.setText(report);
+                saveButton.setToolTipText("Saved to " + file.getAbsolutePath());
+            });
+        }));
+
+        final JPanel buttons = new JPanel(new GridLayout(1, 3, 5, 0));
+        buttons.setOpaque(false);
+        buttons.add(refreshButton);
+        buttons.add(resetButton);
+        buttons.add(saveButton);
+
+        timingsPanel.add(new JLabel("Client Thread Timings (us)"), BorderLayout.NORTH);
+        timingsPanel.add(scrollPane, BorderLayout.CENTER);
+        timingsPanel.add(buttons, BorderLayout.SOUTH);
+    }
+
+    private void copyImage(Clipboard clipboard, String text) {
+        // The text list isn't shown next to the table, lay it out just for the image
+        JLabel label = textLabel;
+        if (memberTable) {
+            label = new JLabel(text);
+            configureTextLabel(label);
+            label.setSize(label.getPreferredSize());
+        }
+
+        BufferedImage image = createImage(label);
+        TransferableImage trans = new TransferableImage(image);
+
+        // Copied PNG image to clipboard
+        clipboard.setContents(trans, null);
+    }
+
+    private void copyNextChunk(Clipboard clipboard) {
+        clipboard.setContents(new StringSelection(pendingChunks.get(nextChunk++)), null);
+
+        if (nextChunk < pendingChunks.size()) {
+            // ex: Copy Part 2/3
+            copyTextButton.setText("Copy Part " + (nextChunk + 1) + "/" + pendingChunks.size());
+        } else {
+            clearChunks();
+        }
+    }
+
+    private void clearChunks() {
+        pendingChunks = Collections.emptyList();
+        nextChunk = 0;
+        copyTextButton.setText(BTN_COPY_TEXT_TEXT);
+    }
+
+    private static void configureTextLabel(JLabel label) {
+        label.setOpaque(false);
+        label.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        label.setBorder(new EmptyBorder(5, 5, 5, 5));
+    }
+
+    void updatePanel(ClanEventAttendanceConfig config, boolean eventRunning) {
+
+        startButton.setText(eventRunning ? BTN_STOP_TEXT : BTN_START_TEXT);
+        copyTextButton.setEnabled(!config.blockCopyButton() || !eventRunning);
+
+        // The remaining parts are from a list that was since started or stopped
+        if (!pendingChunks.isEmpty() && chunksEventRunning != eventRunning)
+            clearChunks();
     }
 
     public BufferedImage createImage(JLabel label) {
@@ -170,6 +468,38 @@ class ClanEventAttendancePanel extends PluginPanel {
         return bi;
     }
 
+    // Formats the text the first time it is pasted, not when copied
+    private static class LazyTextSelection implements Transferable {
+
+        private final Supplier<String> text;
+        private String formatted;
+
+        LazyTextSelection(Supplier<String> text) {
+            this.text = text;
+        }
+
+        public synchronized Object getTransferData(DataFlavor flavor)
+                throws UnsupportedFlavorException {
+            if (!flavor.equals(DataFlavor.stringFlavor)) {
+                throw new UnsupportedFlavorException(flavor);
+            }
+
+            if (formatted == null) {
+                formatted = text.get();
+            }
+
+            return formatted;
+        }
+
+        public DataFlavor[] getTransferDataFlavors() {
+            return new DataFlavor[]{DataFlavor.stringFlavor};
+        }
+
+        public boolean isDataFlavorSupported(DataFlavor flavor) {
+            return flavor.equals(DataFlavor.stringFlavor);
+        }
+    }
+
     private static class TransferableImage implements Transferable {
 
         Image i;
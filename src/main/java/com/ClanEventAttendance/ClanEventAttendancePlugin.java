@@ -27,21 +27,38 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package com.ClanEventAttendance;
 
-import com.ClanEventAttendance.config.ClanChannelType;
 import com.ClanEventAttendance.config.OutputFormat;
 import java.io.File;
-import java.io.PrintWriter;
+import java.io.IOException;
+import java.io.Reader;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.io.StringWriter;
 import java.text.SimpleDateFormat;
+import java.util.ArrayList;
+import java.util.Collections;
 import java.util.Date;
+import java.util.List;
+import com.google.common.annotations.VisibleForTesting;
 import com.google.inject.Provides;
-import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.HashSet;
+import java.util.Iterator;
 import java.util.Map;
-import java.util.TreeMap;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.function.Consumer;
 import javax.inject.Inject;
+import javax.swing.JOptionPane;
+import javax.swing.SwingUtilities;
+import lombok.AccessLevel;
+import lombok.Getter;
 import lombok.extern.slf4j.Slf4j;
 import net.runelite.api.Client;
 import net.runelite.api.FriendsChatMember;
 import net.runelite.api.Player;
+import net.runelite.api.clan.ClanChannel;
 import net.runelite.api.clan.ClanChannelMember;
 import net.runelite.api.events.ClanChannelChanged;
 import net.runelite.api.events.ClanMemberJoined;
@@ -52,6 +69,7 @@ import net.runelite.api.events.GameStateChanged;
 import net.runelite.api.events.GameTick;
 import net.runelite.api.events.PlayerDespawned;
 import net.runelite.api.events.PlayerSpawned;
+import net.runelite.client.callback.ClientThread;
 import net.runelite.client.config.ConfigManager;
 import net.runelite.client.eventbus.Subscribe;
 import net.runelite.client.events.ConfigChanged;
@@ -60,10 +78,8 @@ import net.runelite.client.plugins.PluginDescriptor;
 import net.runelite.client.ui.ClientToolbar;
 import net.runelite.client.ui.NavigationButton;
 import net.runelite.client.util.ImageUtil;
-import net.runelite.client.util.Text;
 import net.runelite.client.RuneLite;
 import java.awt.image.BufferedImage;
-import java.util.concurrent.TimeUnit;
 
 @Slf4j
 @PluginDescriptor(name = "Clan Event Attendance", description = "Tracks clan attendance and time spent at events.", tags = {
@@ -75,33 +91,138 @@ public class ClanEventAttendancePlugin extends Plugin {
 	@Inject
 	private Client client;
 
+	@Inject
+	private ClientThread clientThread;
+
 	@Inject
 	private ClanEventAttendanceConfig config;
 
+	@Inject
+	private RenderScheduler renderScheduler;
+
+	@Inject
+	private PanelPublisher panelPublisher;
+
+	@Inject
+	private AttendanceFileWriter fileWriter;
+
+	@Inject
+	private EventJournal journal;
+
+	@Inject
+	private ScheduledExecutorService executor;
+
+	@Inject
+	private Instrumentation instrumentation;
+
 	private ClanEventAttendancePanel panel;
 	private NavigationButton navButton;
 
 	private int eventStartedAt;
+	private long eventStartedAtMillis;
 	private int eventStoppedAt;
-	public boolean eventRunning;
+	public volatile boolean eventRunning;
 
-	private final Map<String, MemberAttendance> attendanceBuffer = new TreeMap<>();
+	// Attendance of the main event, its changes are journaled
+	private final AttendanceEngine engine = new AttendanceEngine(new AttendanceEngine.Listener() {
+		@Override
+		public void added(int tick, String key, String name) {
+			journal.added(tick, key, name);
+		}
+
+		@Override
+		public void present(int tick, String key) {
+			journal.present(tick, key);
+		}
+
+		@Override
+		public void absent(int tick, String key) {
+			journal.absent(tick, key);
+		}
+	});
+	private final AttendanceStore attendance = engine.getAttendance();
+	// Presence intervals of the members in attendance, by the same ids
+	@Getter(AccessLevel.PACKAGE)
+	private final PresenceTimeline timeline = engine.getTimeline();
+	private final TimelineImage timelineImage = new TimelineImage();
 
 	private String presentColorText;
 	private String absentColorText;
-
-	private boolean CC_Valid;
-	private boolean FC_Valid;
+	// Read once per config change, the config proxy is too slow to ask for every row
+	private int presentThreshold;
+	private int lateThreshold;
+	private boolean lateMembers;
+	private boolean memberTable;
+
+	// Reused by every render, only touched from the client thread
+	private final StringBuilder activeRows = new StringBuilder();
+	private final StringBuilder inactiveRows = new StringBuilder();
+	private final StringBuilder attendanceText = new StringBuilder();
+
+	private static final String LATE_HEADER = String.format("%-12s | %-6s | %-6s<br/>", "Name", "Time", "Late");
+	private static final String HEADER = String.format("%-12s | %-6s<br/>", "Name", "Time");
+	// Past this many ticks (about 24 days) (int) (ticks * 0.6f) no longer matches ticks * 3 / 5
+	@VisibleForTesting
+	static final int EXACT_SECONDS_TICKS = 3495258;
+
+	// Running events, the one started from the panel and the named ones, by slot
+	private final EventIndex events = new EventIndex();
+	// Presence changes since the last tick, applied together on the tick
+	private final PresenceChanges changes = new PresenceChanges();
+	// Named events by slot, the main event has none
+	private final EventTracker[] trackers = new EventTracker[EventIndex.MAX_EVENTS];
+	// Latest tracker of each named event, running or stopped, for copying
+	private final Map<String, EventTracker> namedTrackers = new HashMap<>();
+	// Read by the panel
+	private final Set<String> runningNamedEvents = ConcurrentHashMap.newKeySet();
+	@Getter(AccessLevel.PACKAGE)
+	private List<EventTracker.Definition> namedEvents = Collections.emptyList();
 
 	private int ScanDelay;
 	private int lastAutosaveTick = 0;
 
-	private final ArrayList<String> ClanMembers = new ArrayList<>();
+	// Normalized names of the clan channel members, kept current by joined/left deltas
+	private final Set<String> ClanMembers = new HashSet<>();
+	// The roster as of the last diff, by display name, so unchanged members aren't normalized again
+	private final Map<String, RosterEntry> rosterByName = new HashMap<>();
+	// The roster the running diff walks, continued each tick until done
+	private final List<ClanChannelMember> rosterQueue = new ArrayList<>();
+	private int rosterNext;
+	// Bumped by each diff, entries it didn't see are the members who left
+	private int rosterGeneration;
+
+	// Players the running rescan still has to check, continued each tick until done
+	private final List<String> rescanQueue = new ArrayList<>();
+	private int rescanNext;
+
+	private final NameKeyCache nameKeys = new NameKeyCache();
+
+	// Players currently spawned around us, by normalized name
+	private final Map<String, Player> playersByKey = new HashMap<>();
+
+	// Where events take place, null when members count anywhere around us
+	private EventArea area;
+	private String areaText = "";
+	// Players around us inside the area, checked once per tick
+	private final Set<String> playersInArea = new HashSet<>();
 
 	private File currentEventFile;
 
 	static final String CONFIG_GROUP = "ClanEventAttendance";
 
+	static final File EVENT_DIR = new File(RuneLite.RUNELITE_DIR, "clan-event-attendance");
+	private static final String FILE_TIMESTAMP_FORMAT = "yyyy-MM-dd_HH-mm-ss";
+
+	// A rescan after a hop into a full world is spread over a few ticks
+	private static final int RESCAN_MIN_PLAYERS = 256;
+	private static final long RESCAN_BUDGET_NANOS = 1_000_000;
+
+	// 10 ticks, a crash loses at most 6 seconds of transitions
+	private static final int JOURNAL_FLUSH_TICKS = 10;
+
+	@Getter(AccessLevel.PACKAGE)
+	private final AttendanceHistory history = new AttendanceHistory(new File(EVENT_DIR, "history.tsv"));
+
 	@Provides
 	ClanEventAttendanceConfig provideConfig(ConfigManager configManager) {
 		return configManager.getConfig(ClanEventAttendanceConfig.class);
@@ -113,12 +234,22 @@ public class ClanEventAttendancePlugin extends Plugin {
 			case HOPPING:
 			case LOGGING_IN:
 				ScanDelay = 1;
+				playersByKey.clear();
+				playersInArea.clear();
+				break;
+			case LOGIN_SCREEN:
+				playersByKey.clear();
+				playersInArea.clear();
+				break;
+			default:
+				break;
 		}
 	}
 
 	@Override
 	protected void startUp() {
 		panel = injector.getInstance(ClanEventAttendancePanel.class);
+		panelPublisher.attach(panel);
 
 		final BufferedImage icon = ImageUtil.loadImageResource(getClass(), "panel_icon.png");
 
@@ -131,119 +262,233 @@ public class ClanEventAttendancePlugin extends Plugin {
 
 		clientToolbar.addNavigation(navButton);
 
-		attendanceBuffer.clear();
+		attendance.clear();
+		timeline.clear();
 		eventRunning = false;
 
+		clientThread.invokeLater(this::indexPlayers);
+
 		initConfig();
+
+		if (config.crashRecovery()) {
+			executor.execute(this::checkUnfinishedEvent);
+		}
 	}
 
 	@Override
 	protected void shutDown() {
 		clientToolbar.removeNavigation(navButton);
 
-		attendanceBuffer.clear();
+		// Called on the EDT, the events are only touched on the client thread
+		clientThread.invoke(this::stopAll);
+	}
+
+	// Client thread only
+	private void stopAll() {
+		// Leave the journal unfinished so the event can be resumed next time
+		if (eventRunning) {
+			journal.checkpoint(eventTick());
+		}
+		journal.close();
+
+		for (String name : new ArrayList<>(runningNamedEvents)) {
+			stopNamedEvent(name);
+		}
+
+		attendance.clear();
+		timeline.clear();
+		events.unregister(EventIndex.PRIMARY);
+		namedTrackers.clear();
+		playersByKey.clear();
 		eventRunning = false;
 	}
 
 	public void startEvent() {
 		// log.info("startEvent");
 
-		attendanceBuffer.clear();
+		nameKeys.clear();
 
 		eventStartedAt = client.getTickCount();
+		engine.start(eventStartedAt);
 		eventRunning = true;
+		events.unregister(EventIndex.PRIMARY);
+		events.register(EventIndex.PRIMARY, config.filterType());
 
 		ScanDelay = 1;
 		lastAutosaveTick = client.getTickCount();
 
-		panel.updatePanel(config, this);
-		panel.setText("");
+		if (memberTable)
+			panelPublisher.publish(AttendanceTableModel.Rows.EMPTY, true);
+		else
+			panelPublisher.publish("", true);
 
-		if (config.saveLocally()) {
-			File dir = new File(RuneLite.RUNELITE_DIR, "clan-event-attendance");
-			if (!dir.exists()) {
-				dir.mkdirs();
-			}
-			String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
-			currentEventFile = new File(dir, "attendance-" + timestamp + ".txt");
+		final Date startedAt = new Date();
+		eventStartedAtMillis = startedAt.getTime();
+		currentEventFile = savesEventFiles() ? newEventFile(startedAt) : null;
+
+		if (config.crashRecovery()) {
+			journal.start(newJournalFile(startedAt), startedAt.getTime(), currentEventFile);
 		} else {
-			currentEventFile = null;
+			journal.close();
 		}
 	}
 
 	public void stopEvent() {
 		// log.info("stopEvent");
 
-		for (String key : attendanceBuffer.keySet()) {
-			compileTicks(key);
-		}
+		// Changes of the stopping tick still count
+		applyChanges();
 
-		if (config.saveLocally()) {
-			saveAttendanceToFile();
-		}
+		eventStoppedAt = client.getTickCount();
 
-		currentEventFile = null;
+		engine.stop(eventStoppedAt);
 
-		eventStoppedAt = client.getTickCount();
+		journal.finish(eventTick());
 		eventRunning = false;
+		events.unregister(EventIndex.PRIMARY);
 
-		panel.setText(generateTextData(true));
-		panel.updatePanel(config, this);
+		publishPanel(true);
+		renderScheduler.rendered(eventStoppedAt);
 
-		if (config.saveLocally()) {
+		if (savesEventFiles()) {
 			saveAttendanceToFile();
 		}
+
+		if (config.attendanceHistory()) {
+			recordHistory();
+		}
+
+		currentEventFile = null;
+	}
+
+	// The running events a player around us counts for, from the chats they are in
+	private long interestedEvents(String playerKey, Player player) {
+		final boolean clanMember = events.clanChatEvents() != 0
+				&& (player.isClanMember() || ClanMembers.contains(playerKey));
+		final boolean friendsChatMember = events.friendsChatEvents() != 0 && player.isFriendsChatMember();
+
+		return events.interested(clanMember, friendsChatMember);
+	}
+
+	// Buffered until the end of the tick, see applyChanges
+	private void present(long eventMask, String playerKey, String playerName) {
+		if (eventMask == 0)
+			return;
+
+		changes.present(playerKey, playerName, eventMask);
 	}
 
-	private boolean IsValid(Player player, boolean validateCC, boolean validateFC) {
-		if (validateCC && CC_Valid && player.isClanMember())
-			return true;
+	private void absent(long eventMask, String playerKey) {
+		if (eventMask == 0)
+			return;
 
-		if (validateFC && FC_Valid && player.isFriendsChatMember())
-			return true;
+		changes.absent(playerKey, eventMask);
+	}
 
-		return validateCC && CC_Valid && ClanMembers.contains(nameToKey(player.getName()));
+	// The events the member is counted in, including the ones they became present in this tick
+	private long memberEvents(String playerKey) {
+		return events.memberEvents(playerKey) | changes.presentEvents(playerKey);
+	}
+
+	// Once per tick, each member changes at most once per event and changes that cancel out were dropped
+	private void applyChanges() {
+		final int tick = client.getTickCount();
+
+		for (int i = 0; i < changes.size(); ++i) {
+			final String key = changes.key(i);
+			long joined = 0;
+
+			for (long mask = changes.absentEvents(i); mask != 0; mask &= mask - 1) {
+				final int event = Long.numberOfTrailingZeros(mask);
+
+				if (!events.isRunning(event))
+					continue;
+
+				if (event == EventIndex.PRIMARY) {
+					engine.absent(key, tick);
+				} else {
+					trackers[event].absent(key, tick);
+				}
+			}
+
+			for (long mask = changes.presentEvents(i); mask != 0; mask &= mask - 1) {
+				final int event = Long.numberOfTrailingZeros(mask);
+
+				if (!events.isRunning(event))
+					continue;
+
+				if (event == EventIndex.PRIMARY) {
+					engine.present(key, changes.name(i), tick);
+				} else {
+					trackers[event].present(key, changes.name(i), tick);
+				}
+				joined |= 1L << event;
+			}
+
+			// Only members whose presence survived the tick are indexed
+			if (joined != 0)
+				events.addMember(key, joined);
+		}
+
+		changes.clear();
 	}
 
 	@Subscribe
 	public void onPlayerSpawned(PlayerSpawned event) {
-		if (!eventRunning)
-			return;
+		final long start = instrumentation.start();
+		playerSpawned(event);
+		instrumentation.record(Instrumentation.Probe.PLAYER_SPAWNED, start);
+	}
 
+	private void playerSpawned(PlayerSpawned event) {
 		final Player player = event.getPlayer();
+		if (player.getName() == null)
+			return;
+
+		final String playerKey = nameToKey(player.getName());
+		playersByKey.put(playerKey, player);
 
-		if (!IsValid(player, true, true))
+		if (events.isEmpty())
 			return;
 
-		final String playerName = player.getName();
+		// Counted from the next area check
+		if (!inArea(playerKey))
+			return;
 
-		// log.info("Player spawned: " + playerName);
+		// log.info("Player spawned: " + player.getName());
 
-		addPlayer(player);
-		unpausePlayer(playerName);
+		present(interestedEvents(playerKey, player), playerKey, player.getName());
 	}
 
 	@Subscribe
 	public void onPlayerDespawned(PlayerDespawned event) {
-		if (!eventRunning)
-			return;
+		final long start = instrumentation.start();
+		playerDespawned(event);
+		instrumentation.record(Instrumentation.Probe.PLAYER_DESPAWNED, start);
+	}
 
+	private void playerDespawned(PlayerDespawned event) {
 		final Player player = event.getPlayer();
-		final String playerName = player.getName();
-		final String playerKey = nameToKey(player.getName());
+		if (player.getName() == null)
+			return;
 
-		// log.info("Player despawned: " + playerName);
+		final String playerKey = nameToKey(player.getName());
+		if (playersByKey.remove(playerKey, player))
+			playersInArea.remove(playerKey);
 
-		if (!attendanceBuffer.containsKey(playerKey))
+		if (events.isEmpty())
 			return;
 
-		compileTicks(playerName);
-		pausePlayer(playerName);
+		// log.info("Player despawned: " + player.getName());
+
+		absent(memberEvents(playerKey), playerKey);
 	}
 
 	@Subscribe
 	public void onClanChannelChanged(ClanChannelChanged event) {
 		ClanMembers.clear();
+		rosterByName.clear();
+		rosterQueue.clear();
 
 		if (event.getClanChannel() == null) {
 			// log.info("onClanChannelChanged, null");
@@ -259,77 +504,78 @@ public class ClanEventAttendancePlugin extends Plugin {
 
 	@Subscribe
 	public void onClanMemberJoined(ClanMemberJoined event) {
-		if (!eventRunning)
-			return;
-
-		if (!CC_Valid)
-			return;
+		final long start = instrumentation.start();
+		clanMemberJoined(event);
+		instrumentation.record(Instrumentation.Probe.CLAN_MEMBER_JOINED, start);
+	}
 
+	private void clanMemberJoined(ClanMemberJoined event) {
 		final ClanChannelMember member = event.getClanMember();
-		ClanMembers.add(nameToKey(member.getName()));
+		final String memberKey = nameToKey(member.getName());
+		ClanMembers.add(memberKey);
+		rosterByName.put(member.getName(), new RosterEntry(memberKey, rosterGeneration));
+
+		if (events.clanChatEvents() == 0)
+			return;
 
 		// log.info("Member joined: " + member.getName());
 
 		if (member.getWorld() != client.getWorld())
 			return;
 
-		final String memberName = member.getName();
-
-		for (final Player player : client.getPlayers()) {
-			if (player == null)
-				continue;
-
-			String playerName = player.getName();
+		// Only track them if they're spawned around us
+		final Player player = playersByKey.get(memberKey);
+		if (player == null || !inArea(memberKey))
+			return;
 
-			// If they're the one that joined the cc
-			if (nameToKey(memberName).equals(nameToKey(playerName))) {
-				addPlayer(player);
-				unpausePlayer(playerName);
-				break;
-			}
-		}
+		present(events.clanChatEvents(), memberKey, player.getName());
 	}
 
 	// Does not fire at all when I myself leave a cc
 	@Subscribe
 	public void onClanMemberLeft(ClanMemberLeft event) {
-		if (!eventRunning)
-			return;
-
-		if (!CC_Valid)
-			return;
+		final long start = instrumentation.start();
+		clanMemberLeft(event);
+		instrumentation.record(Instrumentation.Probe.CLAN_MEMBER_LEFT, start);
+	}
 
+	private void clanMemberLeft(ClanMemberLeft event) {
 		final ClanChannelMember member = event.getClanMember();
-		ClanMembers.remove(nameToKey(member.getName()));
+		final String memberKey = nameToKey(member.getName());
+		ClanMembers.remove(memberKey);
+		rosterByName.remove(member.getName());
+
+		if (events.clanChatEvents() == 0)
+			return;
 
 		// log.info("Member left: " + member.getName());
 
 		if (member.getWorld() != client.getWorld())
 			return;
 
-		final String memberName = member.getName();
-
-		final String playerKey = nameToKey(memberName);
-		if (!attendanceBuffer.containsKey(playerKey))
+		long leaving = memberEvents(memberKey) & events.clanChatEvents();
+		if (leaving == 0)
 			return;
 
-		MemberAttendance ma = attendanceBuffer.get(playerKey);
-
-		if (IsValid(ma.member, false, true))
-			return;
+		// Still valid through the friends chat for events that also follow it
+		final Player player = playersByKey.get(memberKey);
+		if (player != null && player.isFriendsChatMember())
+			leaving &= ~events.friendsChatEvents();
 
-		compileTicks(memberName);
-		pausePlayer(memberName);
+		absent(leaving, memberKey);
 	}
 
 	// Fires for every online member when I myself join a cc (including myself,
 	// after everyone else)
 	@Subscribe
 	public void onFriendsChatMemberJoined(FriendsChatMemberJoined event) {
-		if (!eventRunning)
-			return;
+		final long start = instrumentation.start();
+		friendsChatMemberJoined(event);
+		instrumentation.record(Instrumentation.Probe.FRIENDS_CHAT_MEMBER_JOINED, start);
+	}
 
-		if (!FC_Valid)
+	private void friendsChatMemberJoined(FriendsChatMemberJoined event) {
+		if (events.friendsChatEvents() == 0)
 			return;
 
 		final FriendsChatMember member = event.getMember();
@@ -337,30 +583,26 @@ public class ClanEventAttendancePlugin extends Plugin {
 		if (member.getWorld() != client.getWorld())
 			return;
 
-		final String memberName = member.getName();
-
-		for (final Player player : client.getPlayers()) {
-			if (player == null)
-				continue;
+		final String memberKey = nameToKey(member.getName());
 
-			String playerName = player.getName();
+		// Only track them if they're spawned around us
+		final Player player = playersByKey.get(memberKey);
+		if (player == null || !inArea(memberKey))
+			return;
 
-			// If they're the one that joined the fc
-			if (nameToKey(memberName).equals(nameToKey(playerName))) {
-				addPlayer(player);
-				unpausePlayer(playerName);
-				break;
-			}
-		}
+		present(events.friendsChatEvents(), memberKey, player.getName());
 	}
 
 	// Does not fire at all when I myself leave a cc
 	@Subscribe
 	public void onFriendsChatMemberLeft(FriendsChatMemberLeft event) {
-		if (!eventRunning)
-			return;
+		final long start = instrumentation.start();
+		friendsChatMemberLeft(event);
+		instrumentation.record(Instrumentation.Probe.FRIENDS_CHAT_MEMBER_LEFT, start);
+	}
 
-		if (!FC_Valid)
+	private void friendsChatMemberLeft(FriendsChatMemberLeft event) {
+		if (events.friendsChatEvents() == 0)
 			return;
 
 		final FriendsChatMember member = event.getMember();
@@ -368,115 +610,213 @@ public class ClanEventAttendancePlugin extends Plugin {
 		if (member.getWorld() != client.getWorld())
 			return;
 
-		final String memberName = member.getName();
-
-		final String playerKey = nameToKey(memberName);
-		if (!attendanceBuffer.containsKey(playerKey))
+		final String memberKey = nameToKey(member.getName());
+		long leaving = memberEvents(memberKey) & events.friendsChatEvents();
+		if (leaving == 0)
 			return;
 
-		MemberAttendance ma = attendanceBuffer.get(playerKey);
+		// Still valid through the clan chat for events that also follow it
+		final Player player = playersByKey.get(memberKey);
+		if (player != null && (player.isClanMember() || ClanMembers.contains(memberKey)))
+			leaving &= ~events.clanChatEvents();
 
-		if (IsValid(ma.member, true, false))
-			return;
+		absent(leaving, memberKey);
+	}
 
-		compileTicks(memberName);
-		pausePlayer(memberName);
+	private boolean inArea(String playerKey) {
+		return area == null || playersInArea.contains(playerKey);
 	}
 
-	private void addPlayer(Player player) {
-		final String playerKey = nameToKey(player.getName());
+	// Once per tick over the players around us, members only count while inside the area
+	private void updateArea() {
+		for (final Map.Entry<String, Player> entry : playersByKey.entrySet()) {
+			final String playerKey = entry.getKey();
+			final Player player = entry.getValue();
+			final boolean inside = area.contains(player.getWorldLocation());
+
+			if (inside == playersInArea.contains(playerKey))
+				continue;
 
-		// if player is not in the attendance buffer, add it
-		if (!attendanceBuffer.containsKey(playerKey)) {
-			MemberAttendance memberAttendance = new MemberAttendance(player,
-					client.getTickCount() - eventStartedAt,
-					client.getTickCount(),
-					0,
-					false);
-			attendanceBuffer.put(playerKey, memberAttendance);
+			if (inside) {
+				playersInArea.add(playerKey);
+				present(interestedEvents(playerKey, player), playerKey, player.getName());
+			} else {
+				playersInArea.remove(playerKey);
+				absent(memberEvents(playerKey), playerKey);
+			}
 		}
 	}
 
-	private void pausePlayer(String playerName) {
-		final String playerKey = nameToKey(playerName);
+	// Only the members who joined or left since the last roster are touched, the players are rescanned once it's done
+	private void startRosterDiff() {
+		rescanQueue.clear();
 
-		if (!attendanceBuffer.containsKey(playerKey))
+		final ClanChannel clanChannel = client.getClanChannel();
+		if (clanChannel == null) {
+			ClanMembers.clear();
+			rosterByName.clear();
+			rosterQueue.clear();
+			startRescan();
 			return;
+		}
+
+		rosterQueue.clear();
+		rosterQueue.addAll(clanChannel.getMembers());
+		rosterNext = 0;
+		++rosterGeneration;
+	}
+
+	// Spread like continueRescan, members still on the roster are only stamped
+	private void continueRosterDiff() {
+		final long deadline = System.nanoTime() + RESCAN_BUDGET_NANOS;
+		int checked = 0;
 
-		// log.info("Player paused: " + playerName);
+		while (rosterNext < rosterQueue.size()) {
+			final ClanChannelMember member = rosterQueue.get(rosterNext++);
+			final RosterEntry entry = rosterByName.get(member.getName());
 
-		MemberAttendance ma = attendanceBuffer.get(playerKey);
-		ma.isPresent = false;
+			if (entry != null) {
+				entry.generation = rosterGeneration;
+			} else {
+				final String memberKey = nameToKey(member.getName());
+				rosterByName.put(member.getName(), new RosterEntry(memberKey, rosterGeneration));
+				ClanMembers.add(memberKey);
+			}
+
+			if (++checked >= RESCAN_MIN_PLAYERS && (checked & 15) == 0 && System.nanoTime() > deadline)
+				return;
+		}
+
+		for (final Iterator<RosterEntry> it = rosterByName.values().iterator(); it.hasNext(); ) {
+			final RosterEntry entry = it.next();
+			if (entry.generation != rosterGeneration) {
+				it.remove();
+				ClanMembers.remove(entry.key);
+			}
+		}
+
+		rosterQueue.clear();
+		startRescan();
 	}
 
-	private void unpausePlayer(String playerName) {
-		final String playerKey = nameToKey(playerName);
+	private void startRescan() {
+		rescanQueue.clear();
+		rescanQueue.addAll(playersByKey.keySet());
+		rescanNext = 0;
+	}
 
-		if (!attendanceBuffer.containsKey(playerKey))
-			return;
+	// At least RESCAN_MIN_PLAYERS per tick, then as many as fit in RESCAN_BUDGET_NANOS
+	private void continueRescan() {
+		final long deadline = System.nanoTime() + RESCAN_BUDGET_NANOS;
+		int checked = 0;
 
-		MemberAttendance ma = attendanceBuffer.get(playerKey);
+		while (rescanNext < rescanQueue.size()) {
+			final String playerKey = rescanQueue.get(rescanNext++);
+			final Player player = playersByKey.get(playerKey);
 
-		// log.info("Player unpaused: " + playerName);
+			// Despawned since the rescan started
+			if (player != null)
+				rescanPlayer(playerKey, player);
 
-		if (ma.isPresent)
-			return;
+			if (++checked >= RESCAN_MIN_PLAYERS && (checked & 15) == 0 && System.nanoTime() > deadline)
+				break;
+		}
 
-		ma.isPresent = true;
-		ma.tickActivityStarted = client.getTickCount();
+		if (rescanNext == rescanQueue.size()) {
+			rescanQueue.clear();
+			rescanNext = 0;
+			// log.info("Scanned " + attendance.size() + " surrounding players");
+		}
 	}
 
-	private void compileTicks(String playerName) {
-		final String playerKey = nameToKey(playerName);
+	// Only the events the player should be in and isn't, or is and shouldn't, change
+	private void rescanPlayer(String playerKey, Player player) {
+		final long wanted = inArea(playerKey) ? interestedEvents(playerKey, player) : 0;
+		final long current = presentEvents(playerKey);
 
-		if (!attendanceBuffer.containsKey(playerKey))
-			return;
+		present(wanted & ~current, playerKey, player.getName());
+		absent(current & ~wanted, playerKey);
+	}
 
-		MemberAttendance ma = attendanceBuffer.get(playerKey);
+	// The running events the member is present in right now
+	private long presentEvents(String playerKey) {
+		long present = 0;
 
-		if (!ma.isPresent)
-			return;
+		for (long mask = events.memberEvents(playerKey); mask != 0; mask &= mask - 1) {
+			final int event = Long.numberOfTrailingZeros(mask);
+
+			if (!events.isRunning(event))
+				continue;
+
+			if (event == EventIndex.PRIMARY ? engine.isPresent(playerKey) : trackers[event].isPresent(playerKey))
+				present |= 1L << event;
+		}
 
-		// Add elapsed tick to the total
-		ma.ticksTotal += client.getTickCount() - ma.tickActivityStarted;
-		ma.tickActivityStarted = client.getTickCount();
+		return present;
 	}
 
-	@Subscribe
-	public void onGameTick(GameTick gameTick) {
-		if (!eventRunning)
-			return;
+	private void indexPlayers() {
+		playersByKey.clear();
+		playersInArea.clear();
 
-		if (ScanDelay == 0) {
-			ClanMembers.clear();
+		for (final Player player : client.getPlayers()) {
+			if (player == null || player.getName() == null)
+				continue;
 
-			if (client.getClanChannel() != null) {
-				client.getClanChannel().getMembers().forEach(member -> ClanMembers.add(nameToKey(member.getName())));
-			}
+			playersByKey.put(nameToKey(player.getName()), player);
+		}
+	}
 
-			for (final Player player : client.getPlayers()) {
-				if (player == null || !IsValid(player, true, true))
-					continue;
+	@Subscribe
+	public void onGameTick(GameTick gameTick) {
+		final long start = instrumentation.start();
+		gameTick(gameTick);
+		instrumentation.record(Instrumentation.Probe.GAME_TICK, start);
+	}
 
-				addPlayer(player);
-				unpausePlayer(player.getName());
-			}
+	private void gameTick(GameTick gameTick) {
+		if (events.isEmpty()) {
+			playersInArea.clear();
+			changes.clear();
+			rosterQueue.clear();
+			rescanQueue.clear();
+			return;
+		}
+
+		if (area != null)
+			updateArea();
 
-			// log.info("Scanned " + attendanceBuffer.size() + " surrounding players");
+		if (ScanDelay == 0) {
+			startRosterDiff();
 		}
 
 		if (ScanDelay >= 0) {
 			--ScanDelay;
 		}
 
-		for (String key : attendanceBuffer.keySet()) {
-			compileTicks(key);
-		}
+		if (!rosterQueue.isEmpty())
+			continueRosterDiff();
+
+		if (!rescanQueue.isEmpty())
+			continueRescan();
+
+		applyChanges();
+
+		// Only named events are running
+		if (!eventRunning)
+			return;
 
 		// Update the text area with the collected data
-		panel.setText(generateTextData(false));
+		if (renderScheduler.shouldRender(client.getTickCount(), config.panelRefreshRate())) {
+			publishPanel(false);
+			renderScheduler.rendered(client.getTickCount());
+		}
 
-		if (config.saveLocally() && config.autosaveInterval() > 0) {
+		if (journal.isOpen() && eventTick() % JOURNAL_FLUSH_TICKS == 0) {
+			journal.checkpoint(eventTick());
+		}
+
+		if (savesEventFiles() && config.autosaveInterval() > 0) {
 			long currentTick = client.getTickCount();
 			long ticksPerInterval = config.autosaveInterval() * 100; // 100 ticks per minute (0.6s * 100 = 60s)
 
@@ -490,44 +830,93 @@ public class ClanEventAttendancePlugin extends Plugin {
 	@Subscribe
 	public void onConfigChanged(ConfigChanged event) {
 		if (event.getGroup().equals(CONFIG_GROUP)) {
-			initConfig();
+			clientThread.invokeLater(this::initConfig);
 		}
 	}
 
-	private void initConfig() {
+	@VisibleForTesting
+	void initConfig() {
 		// log.info("initConfig");
 
-		CC_Valid = config.filterType() == ClanChannelType.CLAN_CHAT || config.filterType() == ClanChannelType.BOTH_CHATS;
-		FC_Valid = config.filterType() == ClanChannelType.FRIENDS_CHAT || config.filterType() == ClanChannelType.BOTH_CHATS;
+		// The chat of a running event can be changed
+		if (eventRunning)
+			events.register(EventIndex.PRIMARY, config.filterType());
 
 		presentColorText = "#" + Integer.toHexString(config.presentColor().getRGB()).substring(2);
 		absentColorText = "#" + Integer.toHexString(config.absentColor().getRGB()).substring(2);
+		presentThreshold = config.presentThreshold();
+		lateThreshold = config.lateThreshold();
+		lateMembers = config.lateMembers();
+		memberTable = config.memberTable();
+		instrumentation.setEnabled(config.debugTimings());
+		namedEvents = EventTracker.parse(config.namedEvents(), presentThreshold, lateThreshold);
+
+		if (!config.eventArea().equals(areaText)) {
+			areaText = config.eventArea();
+			final EventArea previous = area;
+			area = EventArea.parse(areaText);
+
+			if (area == null) {
+				// Everyone around counts again
+				playersInArea.clear();
+				ScanDelay = 1;
+			} else if (previous == null) {
+				// Everyone around counted until now, the next check pauses who is outside
+				playersInArea.addAll(playersByKey.keySet());
+			}
+		}
+
+		// No panel when driven headless, ex: by the benchmarks
+		if (panel != null) {
+			SwingUtilities.invokeLater(() -> {
+				panel.removeAll();
+				panel.init(config, this);
+			});
+		}
 
-		if (!attendanceBuffer.isEmpty()) {
-			panel.setText(generateTextData(!eventRunning));
+		if (!attendance.isEmpty()) {
+			publishPanel(!eventRunning);
 		}
+	}
+
+	private void publishPanel(boolean finalDisplay) {
+		if (memberTable)
+			panelPublisher.publish(buildRows(), eventRunning);
+		else
+			panelPublisher.publish(generateTextData(finalDisplay), eventRunning);
+	}
 
-		panel.removeAll();
-		panel.init(config, this);
+	// Client thread only, also builds the text list the member table copies
+	String generateTextData(boolean finalDisplay) {
+		final long start = instrumentation.start();
+		final String text = buildTextData(finalDisplay);
+		instrumentation.record(Instrumentation.Probe.GENERATE_TEXT_DATA, start);
+		return text;
 	}
 
-	private String generateTextData(boolean finalDisplay) {
+	private String buildTextData(boolean finalDisplay) {
 		// log.info("generateTextData");
 
-		StringBuilder activeSB = new StringBuilder();
-		StringBuilder inactiveSB = new StringBuilder();
+		final StringBuilder activeSB = activeRows;
+		final StringBuilder inactiveSB = inactiveRows;
+		activeSB.setLength(0);
+		inactiveSB.setLength(0);
+
+		final int tick = currentTick();
 
 		// Split the members into 2 lists
-		for (String key : attendanceBuffer.keySet()) {
-			MemberAttendance ma = attendanceBuffer.get(key);
+		for (int i = 0; i < attendance.size(); ++i) {
+			final int id = attendance.idAt(i);
+			final int totalSeconds = ticksToSeconds(attendance.ticksTotalAt(id, tick));
 
-			if (ticksToSeconds(ma.ticksTotal) < config.presentThreshold())
-				inactiveSB.append(memberAttendanceToString(ma));
+			if (totalSeconds < presentThreshold)
+				appendMemberAttendance(inactiveSB, id, totalSeconds);
 			else
-				activeSB.append(memberAttendanceToString(ma));
+				appendMemberAttendance(activeSB, id, totalSeconds);
 		}
 
-		StringBuilder attendanceString = new StringBuilder();
+		final StringBuilder attendanceString = attendanceText;
+		attendanceString.setLength(0);
 		attendanceString.append("<html><body><pre>");
 
 		if (finalDisplay) {
@@ -539,8 +928,7 @@ public class ClanEventAttendancePlugin extends Plugin {
 
 		// ex: Event duration: 18:36
 		attendanceString.append("Event Duration: ");
-		final int durationTargetTick = eventRunning ? client.getTickCount() : eventStoppedAt;
-		attendanceString.append(timeFormat(ticksToSeconds(durationTargetTick - eventStartedAt)));
+		AttendanceFormatter.appendTime(attendanceString, ticksToSeconds(tick - eventStartedAt));
 		attendanceString.append("<br/><br/>");
 
 		if (finalDisplay && config.discordMarkdown() && (config.outputFormat() == OutputFormat.TEXT))
@@ -549,11 +937,7 @@ public class ClanEventAttendancePlugin extends Plugin {
 		if (activeSB.length() > 0) {
 			attendanceString.append("Present Members<br/>");
 			attendanceString.append("------------------------------<br/>");
-			if (config.lateMembers()) {
-				attendanceString.append(String.format("%-12s | %-6s | %-6s<br/>", "Name", "Time", "Late"));
-			} else {
-				attendanceString.append(String.format("%-12s | %-6s<br/>", "Name", "Time"));
-			}
+			attendanceString.append(lateMembers ? LATE_HEADER : HEADER);
 
 			attendanceString.append(activeSB);
 		}
@@ -565,15 +949,11 @@ public class ClanEventAttendancePlugin extends Plugin {
 
 			// ex: Below time threshold (03:00)
 			attendanceString.append("Below Threshold (");
-			attendanceString.append(timeFormat(config.presentThreshold()));
+			AttendanceFormatter.appendTime(attendanceString, presentThreshold);
 			attendanceString.append(")<br/>");
 
 			attendanceString.append("------------------------------<br/>");
-			if (config.lateMembers()) {
-				attendanceString.append(String.format("%-12s | %-6s | %-6s<br/>", "Name", "Time", "Late"));
-			} else {
-				attendanceString.append(String.format("%-12s | %-6s<br/>", "Name", "Time"));
-			}
+			attendanceString.append(lateMembers ? LATE_HEADER : HEADER);
 
 			attendanceString.append(inactiveSB);
 		}
@@ -593,14 +973,60 @@ public class ClanEventAttendancePlugin extends Plugin {
 		return attendanceString.toString();
 	}
 
-	private String memberAttendanceToString(MemberAttendance ma) {
-		boolean isLate = ticksToSeconds(ma.ticksLate) > config.lateThreshold();
+	// Client thread only, the text is formatted later from the snapshot, on any thread
+	AttendanceText textSnapshot(boolean finalDisplay) {
+		final int tick = currentTick();
+		return AttendanceText.of(attendance, tick, ticksToSeconds(tick - eventStartedAt),
+				presentThreshold, lateThreshold, lateMembers,
+				finalDisplay ? plainText(config.listPrefix()) : null,
+				finalDisplay ? plainText(config.listSuffix()) : null,
+				finalDisplay && config.discordMarkdown() && (config.outputFormat() == OutputFormat.TEXT));
+	}
+
+	// The prefix and suffix as they read once the list markup is removed
+	private static String plainText(String text) {
+		if (text.isEmpty())
+			return null;
+
+		return text.replaceAll("(\r\n|\n\r|\r|\n|<br/>)", "\n").replaceAll("<[^>]*>", "");
+	}
+
+	private AttendanceTableModel.Rows buildRows() {
+		final int size = attendance.size();
+		final String[] names = new String[size];
+		final int[] seconds = new int[size];
+		final int[] lateSeconds = new int[size];
+		final boolean[] late = new boolean[size];
+		final boolean[] present = new boolean[size];
+		final boolean[] aboveThreshold = new boolean[size];
+		final int tick = currentTick();
+
+		for (int id = 0; id < size; ++id) {
+			names[id] = attendance.name(id);
+			seconds[id] = ticksToSeconds(attendance.ticksTotalAt(id, tick));
+			lateSeconds[id] = ticksToSeconds(attendance.ticksLate(id));
+			late[id] = lateSeconds[id] > lateThreshold;
+			present[id] = attendance.isPresent(id);
+			aboveThreshold[id] = seconds[id] >= presentThreshold;
+		}
+
+		return new AttendanceTableModel.Rows(size, names, seconds, lateSeconds, late, present, aboveThreshold, eventRunning);
+	}
+
+	@VisibleForTesting
+	String memberAttendanceToString(int id) {
+		final StringBuilder sb = new StringBuilder();
+		appendMemberAttendance(sb, id, ticksToSeconds(attendance.ticksTotalAt(id, currentTick())));
+		return sb.toString();
+	}
+
+	private void appendMemberAttendance(StringBuilder sb, int id, int totalSeconds) {
+		final int lateSeconds = ticksToSeconds(attendance.ticksLate(id));
 		// white
 		String lineColor = "#FFFFFF";
-		String ret;
 
 		if (eventRunning)
-			lineColor = ma.isPresent ? presentColorText : absentColorText;
+			lineColor = attendance.isPresent(id) ? presentColorText : absentColorText;
 
 		// config.lateMembers()
 		// ex: JoRouss | 06:46 | 01:07 // isLate
@@ -608,73 +1034,375 @@ public class ClanEventAttendancePlugin extends Plugin {
 
 		// !config.lateMembers()
 		// ex: JoRouss | 06:46
+		AttendanceFormatter.appendRow(sb, lineColor, attendance.name(id), totalSeconds, lateMembers, lateSeconds > lateThreshold, lateSeconds);
+	}
+
+	static String timeFormat(int totalSeconds) {
+		final StringBuilder sb = new StringBuilder(6);
+		AttendanceFormatter.appendTime(sb, totalSeconds);
+		return sb.toString();
+	}
+
+	private int currentTick() {
+		return eventRunning ? client.getTickCount() : eventStoppedAt;
+	}
+
+	private int eventTick() {
+		return client.getTickCount() - eventStartedAt;
+	}
+
+	static int ticksToSeconds(int ticks) {
+		// 0.6 seconds per tick
+		if (ticks >= 0 && ticks < EXACT_SECONDS_TICKS)
+			return ticks * 3 / 5;
+
+		return (int) (ticks * 0.6f);
+	}
+
+	private String nameToKey(String playerName) {
+		return nameKeys.toKey(playerName);
+	}
+
+	private static File newEventFile(Date startedAt) {
+		String timestamp = new SimpleDateFormat(FILE_TIMESTAMP_FORMAT).format(startedAt);
+		return new File(EVENT_DIR, "attendance-" + timestamp + ".txt");
+	}
+
+	private static File newMergedFile(Date startedAt) {
+		String timestamp = new SimpleDateFormat(FILE_TIMESTAMP_FORMAT).format(startedAt);
+		return new File(EVENT_DIR, "attendance-merged-" + timestamp + ".txt");
+	}
+
+	private static File newNamedEventFile(String name, Date startedAt) {
+		String timestamp = new SimpleDateFormat(FILE_TIMESTAMP_FORMAT).format(startedAt);
+		// Named by the user, keep it to characters any file system accepts
+		return new File(EVENT_DIR, "attendance-" + name.replaceAll("[^A-Za-z0-9_-]+", "_") + "-" + timestamp + ".txt");
+	}
+
+	// Client thread only
+	String timingReport() {
+		return instrumentation.report();
+	}
+
+	// Client thread only
+	void clearTimings() {
+		instrumentation.clear();
+	}
+
+	// Client thread only, the report is written by AttendanceFileWriter
+	File dumpTimings() {
+		String timestamp = new SimpleDateFormat(FILE_TIMESTAMP_FORMAT).format(new Date());
+		final File file = new File(EVENT_DIR, "timings-" + timestamp + ".txt");
+		final String report = instrumentation.report();
+		fileWriter.save(file, out -> out.write(report));
+		return file;
+	}
+
+	private static File newJournalFile(Date startedAt) {
+		String timestamp = new SimpleDateFormat(FILE_TIMESTAMP_FORMAT).format(startedAt);
+		return new File(EVENT_DIR, EventJournal.FILE_PREFIX + timestamp + EventJournal.FILE_SUFFIX);
+	}
+
+	// Runs on the executor, replaying is file I/O
+	private void checkUnfinishedEvent() {
+		final File file = EventJournal.findLatest(EVENT_DIR);
+		if (file == null)
+			return;
 
-		if (config.lateMembers()) {
-			ret = String.format("%s%-12s | %-6s | %-6s%s<br/>",
-					"<font color='" + lineColor + "'>",
-					ma.member.getName(),
-					timeFormat(ticksToSeconds(ma.ticksTotal)),
-					isLate ? timeFormat(ticksToSeconds(ma.ticksLate)) : "-",
-					"</font>");
+		final EventJournal.Recovery recovery;
+		try {
+			recovery = EventJournal.replay(file);
+		} catch (IOException e) {
+			log.error("Failed to read event journal", e);
+			return;
+		}
+
+		// Left behind when deleting it failed
+		if (recovery.isFinished()) {
+			file.delete();
+			return;
+		}
+
+		SwingUtilities.invokeLater(() -> {
+			final String startedAt = new SimpleDateFormat("yyyy-MM-dd HH:mm").format(new Date(recovery.getStartMillis()));
+			final int result = JOptionPane.showOptionDialog(panel,
+					"An event started on " + startedAt + " was not stopped.\nDo you want to resume it?",
+					"Resume event?", JOptionPane.YES_NO_OPTION, JOptionPane.QUESTION_MESSAGE,
+					null, new String[] { "Yes", "No" }, "Yes");
+
+			if (result == JOptionPane.YES_OPTION) {
+				clientThread.invokeLater(() -> resumeEvent(recovery));
+			} else {
+				journal.abandon(recovery);
+			}
+		});
+	}
+
+	private void resumeEvent(EventJournal.Recovery recovery) {
+		if (eventRunning)
+			return;
+
+		nameKeys.clear();
+
+		// The client tick count restarted with the client, realign the event start on wall-clock time
+		final int elapsedTicks = (int) ((System.currentTimeMillis() - recovery.getStartMillis()) / 600);
+		eventStartedAt = client.getTickCount() - Math.max(elapsedTicks, recovery.getLastTick());
+		engine.start(eventStartedAt);
+		eventStartedAtMillis = recovery.getStartMillis();
+		eventRunning = true;
+		events.unregister(EventIndex.PRIMARY);
+		events.register(EventIndex.PRIMARY, config.filterType());
+
+		for (EventJournal.RecoveredMember member : recovery.getMembers()) {
+			final int id = attendance.restore(member.getKey(), member.getName(),
+					member.getTicksLate(),
+					member.getTicksTotal(),
+					member.getJoins(),
+					member.getLeaves());
+
+			for (int[] interval : member.getIntervals()) {
+				timeline.append(id, interval[0], interval[1]);
+			}
+
+			events.addMember(member.getKey(), 1L << EventIndex.PRIMARY);
+		}
+
+		ScanDelay = 1;
+		lastAutosaveTick = client.getTickCount();
+
+		journal.resume(recovery);
+		journal.checkpoint(eventTick());
+
+		if (savesEventFiles()) {
+			currentEventFile = recovery.getAttendanceFileName() != null
+					? new File(EVENT_DIR, recovery.getAttendanceFileName())
+					: newEventFile(new Date(recovery.getStartMillis()));
 		} else {
-			ret = String.format("%s%-12s | %-6s%s<br/>",
-					"<font color='" + lineColor + "'>",
-					ma.member.getName(),
-					timeFormat(ticksToSeconds(ma.ticksTotal)),
-					"</font>");
+			currentEventFile = null;
 		}
 
-		return ret;
+		publishPanel(false);
 	}
 
-	private String timeFormat(int totalSeconds) {
-		long minute = TimeUnit.SECONDS.toMinutes(totalSeconds);
-		long second = TimeUnit.SECONDS.toSeconds(totalSeconds) - (TimeUnit.SECONDS.toMinutes(totalSeconds) * 60);
+	boolean isNamedEventRunning(String name) {
+		return runningNamedEvents.contains(name);
+	}
 
-		if (minute > 99) {
-			// ex: 118:26
-			return String.format("%03d:%02d", minute, second);
+	// Client thread only
+	void startNamedEvent(String name) {
+		if (runningNamedEvents.contains(name))
+			return;
+
+		EventTracker.Definition definition = null;
+		for (EventTracker.Definition namedEvent : namedEvents) {
+			if (namedEvent.getName().equals(name))
+				definition = namedEvent;
 		}
 
-		// ex: 18:26
-		return String.format("%02d:%02d", minute, second);
+		final int event = events.freeEvent();
+		if (definition == null || event < 0)
+			return;
+
+		final Date startedAt = new Date();
+		final File file = config.saveLocally() ? newNamedEventFile(name, startedAt) : null;
+		final EventTracker tracker = new EventTracker(definition, client.getTickCount(), file);
+
+		trackers[event] = tracker;
+		namedTrackers.put(name, tracker);
+		runningNamedEvents.add(name);
+		events.register(event, definition.getFilter());
+
+		// Pick up who is already around
+		ScanDelay = 1;
 	}
 
-	private int ticksToSeconds(int ticks) {
-		return (int) (ticks * 0.6f);
+	// Client thread only
+	void stopNamedEvent(String name) {
+		if (!runningNamedEvents.remove(name))
+			return;
+
+		applyChanges();
+
+		for (int event = 0; event < trackers.length; ++event) {
+			final EventTracker tracker = trackers[event];
+			if (tracker == null || !tracker.getDefinition().getName().equals(name))
+				continue;
+
+			tracker.stop(client.getTickCount());
+			events.unregister(event);
+			trackers[event] = null;
+
+			if (tracker.getFile() != null) {
+				final AttendanceText text = tracker.text(client.getTickCount(), lateMembers);
+				fileWriter.save(tracker.getFile(), out -> {
+					out.write(text.text());
+					out.write(System.lineSeparator());
+				});
+			}
+		}
 	}
 
-	private String nameToKey(String playerName) {
-		return Text.toJagexName(playerName).toLowerCase();
+	// Client thread only, null if the named event never ran
+	AttendanceText namedEventText(String name) {
+		final EventTracker tracker = namedTrackers.get(name);
+		return tracker == null ? null : tracker.text(client.getTickCount(), lateMembers);
+	}
+
+	// The list is snapshotted here, the file itself is written by AttendanceFileWriter
+	@VisibleForTesting
+	void saveAttendanceToFile() {
+		final long start = instrumentation.start();
+		saveAttendance();
+		instrumentation.record(Instrumentation.Probe.SAVE_ATTENDANCE, start);
 	}
 
-	private void saveAttendanceToFile() {
+	private void saveAttendance() {
 		if (currentEventFile == null) {
-			File dir = new File(RuneLite.RUNELITE_DIR, "clan-event-attendance");
-			if (!dir.exists()) {
-				dir.mkdirs();
+			currentEventFile = newEventFile(new Date());
+		}
+
+		if (config.saveLocally()) {
+			final OutputFormat format = config.outputFormat();
+			if (format == OutputFormat.CSV || format == OutputFormat.JSON) {
+				final AttendanceExport export = buildExport();
+				fileWriter.save(exportFile(currentEventFile, format), out -> export.write(out, format));
+			} else {
+				fileWriter.save(currentEventFile, generateTextData(true));
+			}
+		}
+
+		if (config.mergeSnapshots()) {
+			final AttendanceSnapshot snapshot = buildSnapshot();
+			fileWriter.save(siblingFile(currentEventFile, AttendanceSnapshot.FILE_SUFFIX), snapshot::write);
+		}
+	}
+
+	// The snapshot is saved without the list too, both are named after the event
+	private boolean savesEventFiles() {
+		return config.saveLocally() || config.mergeSnapshots();
+	}
+
+	// CSV and JSON lists are saved next to the text list, with their own extension
+	private static File exportFile(File textFile, OutputFormat format) {
+		return siblingFile(textFile, format == OutputFormat.JSON ? ".json" : ".csv");
+	}
+
+	private static File siblingFile(File textFile, String suffix) {
+		final String name = textFile.getName();
+		final String baseName = name.endsWith(".txt") ? name.substring(0, name.length() - 4) : name;
+		return new File(textFile.getParentFile(), baseName + suffix);
+	}
+
+	// Client thread only
+	@VisibleForTesting
+	AttendanceSnapshot buildSnapshot() {
+		final List<AttendanceSnapshot.Member> members = new ArrayList<>(attendance.size());
+
+		for (int i = 0; i < attendance.size(); ++i) {
+			final int id = attendance.idAt(i);
+			members.add(new AttendanceSnapshot.Member(attendance.key(id), attendance.name(id),
+					timeline.intervals(id, currentTick() - eventStartedAt)));
+		}
+
+		return new AttendanceSnapshot(eventStartedAtMillis, currentTick() - eventStartedAt, client.getWorld(), members);
+	}
+
+	// The snapshots are read and merged on the executor, done is called on the EDT with what happened
+	void mergeSnapshots(File[] files, Consumer<String> done) {
+		final int present = config.presentThreshold();
+		final int late = config.lateThreshold();
+		// The merge is always structured data, text lists can't be merged again
+		final OutputFormat format = config.outputFormat() == OutputFormat.CSV ? OutputFormat.CSV : OutputFormat.JSON;
+
+		executor.execute(() -> {
+			String result;
+			try {
+				final List<AttendanceSnapshot> snapshots = new ArrayList<>(files.length);
+				for (File file : files) {
+					try (Reader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+						snapshots.add(AttendanceSnapshot.read(in));
+					} catch (IOException | RuntimeException e) {
+						throw new IOException(file.getName() + ": " + e.getMessage(), e);
+					}
+				}
+
+				final AttendanceSnapshot merged = AttendanceSnapshot.merge(snapshots);
+				final AttendanceExport export = merged.toExport(present, late);
+				final File file = newMergedFile(new Date(merged.getStartedAtMillis()));
+				fileWriter.save(siblingFile(file, AttendanceSnapshot.FILE_SUFFIX), merged::write);
+				fileWriter.save(exportFile(file, format), out -> export.write(out, format));
+
+				result = "Merged " + files.length + " snapshots, " + merged.getMembers().size()
+						+ " members. Saved to " + exportFile(file, format).getAbsolutePath();
+			} catch (IOException e) {
+				log.warn("Failed to merge snapshots", e);
+				result = "Couldn't merge the snapshots. " + e.getMessage();
 			}
-			String timestamp = new SimpleDateFormat("yyyy-MM-dd_HH-mm-ss").format(new Date());
-			currentEventFile = new File(dir, "attendance-" + timestamp + ".txt");
-		}
-
-		try (PrintWriter out = new PrintWriter(currentEventFile)) {
-			// Get text data, strip HTML for clean text file
-			String htmlContent = generateTextData(true);
-			String textContent = htmlContent
-					.replace("<html><body><pre>", "")
-					.replace("</pre></body></html>", "")
-					.replace("<br/>", System.lineSeparator())
-					.replaceAll("<[^>]+>", "");
-
-			// If discord markdown is enabled, the generation does wrapping.
-			// We might want raw text or keep it as is.
-			// Given it's a backup, keeping exact output format is usually best.
-
-			out.println(textContent);
-			// log.info("Saved attendance to " + file.getAbsolutePath());
-		} catch (Exception e) {
-			log.error("Failed to save attendance file", e);
+
+			final String message = result;
+			SwingUtilities.invokeLater(() -> done.accept(message));
+		});
+	}
+
+	@VisibleForTesting
+	AttendanceExport buildExport() {
+		final List<AttendanceExport.Row> rows = new ArrayList<>(attendance.size());
+
+		for (int i = 0; i < attendance.size(); ++i) {
+			final int id = attendance.idAt(i);
+			final int ticksTotal = attendance.ticksTotalAt(id, currentTick());
+			rows.add(new AttendanceExport.Row(attendance.name(id),
+					ticksTotal,
+					attendance.ticksLate(id),
+					ticksToSeconds(attendance.ticksLate(id)) > config.lateThreshold(),
+					ticksToSeconds(ticksTotal) >= config.presentThreshold(),
+					attendance.joins(id),
+					attendance.leaves(id),
+					timeline.intervals(id, currentTick() - eventStartedAt)));
+		}
+
+		return new AttendanceExport(eventStartedAtMillis, currentTick() - eventStartedAt,
+				config.presentThreshold(), config.lateThreshold(), rows);
+	}
+
+	private void recordHistory() {
+		final List<AttendanceHistory.Record> records = new ArrayList<>(attendance.size());
+
+		for (int i = 0; i < attendance.size(); ++i) {
+			final int id = attendance.idAt(i);
+			records.add(new AttendanceHistory.Record(attendance.key(id), attendance.name(id), attendance.ticksTotal(id), attendance.ticksLate(id)));
+		}
+
+		final long startedAtMillis = eventStartedAtMillis;
+		final int durationTicks = eventStoppedAt - eventStartedAt;
+		executor.execute(() -> history.ingest(startedAtMillis, durationTicks, records));
+	}
+
+	// Client thread only, the image is drawn from the attendance data
+	BufferedImage renderTimeline() {
+		return timelineImage.render(attendance, timeline, currentTick(), currentTick() - eventStartedAt, eventRunning,
+				presentThreshold, config.presentColor(), config.absentColor());
+	}
+
+	String exportData(OutputFormat format) {
+		final StringWriter out = new StringWriter();
+		try {
+			buildExport().write(out, format);
+		} catch (IOException e) {
+			// StringWriter doesn't throw
+			throw new IllegalStateException(e);
+		}
+		return out.toString();
+	}
+
+	private static final class RosterEntry {
+		private final String key;
+		// The last roster diff that saw the member
+		private int generation;
+
+		private RosterEntry(String key, int generation) {
+			this.key = key;
+			this.generation = generation;
 		}
 	}
 }
@@ -0,0 +1,172 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.TreeMap;
+import net.runelite.api.coords.WorldPoint;
+
+/**
+ * Where an event takes place, a set of regions and rectangles of world points.
+ * They are indexed by the 64x64 region they touch when the config is read,
+ * so {@link #contains} is a binary search over the touched regions and a
+ * check of the few rectangles in the player's region, however many there are.
+ */
+final class EventArea {
+    private static final int ANY_PLANE = -1;
+    // Region ids are 8 bits of x and 8 bits of y
+    private static final int MAX_COORDINATE = (1 << 14) - 1;
+
+    // Touched region ids, sorted
+    private final int[] regions;
+    // Region fully inside the area, on every plane
+    private final boolean[] whole;
+    // x1, y1, x2, y2, plane of the rectangles touching each region
+    private final int[][] rectangles;
+
+    private EventArea(int[] regions, boolean[] whole, int[][] rectangles) {
+        this.regions = regions;
+        this.whole = whole;
+        this.rectangles = rectangles;
+    }
+
+    boolean contains(WorldPoint point) {
+        if (point == null)
+            return false;
+
+        final int x = point.getX();
+        final int y = point.getY();
+        final int index = Arrays.binarySearch(regions, regionId(x, y));
+        if (index < 0)
+            return false;
+
+        if (whole[index])
+            return true;
+
+        final int[] rects = rectangles[index];
+        for (int i = 0; i < rects.length; i += 5) {
+            if (x >= rects[i] && y >= rects[i + 1] && x <= rects[i + 2] && y <= rects[i + 3]
+                    && (rects[i + 4] == ANY_PLANE || rects[i + 4] == point.getPlane()))
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Reads the event area option, one entry per line or separated by ';':
+     * a region id, ex: 12850, or a rectangle of world points x1, y1, x2, y2
+     * with an optional plane. Entries that can't be read are skipped.
+     *
+     * @return null when there is no area, members count anywhere
+     */
+    static EventArea parse(String text) {
+        if (text == null || text.trim().isEmpty())
+            return null;
+
+        // Rectangles by region, null for a whole region
+        final TreeMap<Integer, List<int[]>> byRegion = new TreeMap<>();
+
+        for (String entry : text.split("[;\\r\\n]+")) {
+            final String[] fields = entry.split(",");
+            if (fields[0].trim().isEmpty())
+                continue;
+
+            try {
+                if (fields.length == 1) {
+                    final int region = Integer.parseInt(fields[0].trim());
+                    if (region >= 0 && region <= 0xFFFF)
+                        byRegion.put(region, null);
+                } else if (fields.length == 4 || fields.length == 5) {
+                    final int x1 = clamp(Integer.parseInt(fields[0].trim()));
+                    final int y1 = clamp(Integer.parseInt(fields[1].trim()));
+                    final int x2 = clamp(Integer.parseInt(fields[2].trim()));
+                    final int y2 = clamp(Integer.parseInt(fields[3].trim()));
+                    final int plane = fields.length == 5 ? Integer.parseInt(fields[4].trim()) : ANY_PLANE;
+                    addRectangle(byRegion, Math.min(x1, x2), Math.min(y1, y2), Math.max(x1, x2), Math.max(y1, y2), plane);
+                }
+            } catch (NumberFormatException e) {
+                // Skipped, like any other entry that can't be read
+            }
+        }
+
+        if (byRegion.isEmpty())
+            return null;
+
+        final int[] regions = new int[byRegion.size()];
+        final boolean[] whole = new boolean[regions.length];
+        final int[][] rectangles = new int[regions.length][];
+        int i = 0;
+
+        for (Map.Entry<Integer, List<int[]>> region : byRegion.entrySet()) {
+            regions[i] = region.getKey();
+            whole[i] = region.getValue() == null;
+
+            final List<int[]> rects = whole[i] ? new ArrayList<>() : region.getValue();
+            rectangles[i] = new int[rects.size() * 5];
+            for (int r = 0; r < rects.size(); ++r) {
+                System.arraycopy(rects.get(r), 0, rectangles[i], r * 5, 5);
+            }
+            ++i;
+        }
+
+        return new EventArea(regions, whole, rectangles);
+    }
+
+    private static void addRectangle(TreeMap<Integer, List<int[]>> byRegion, int x1, int y1, int x2, int y2, int plane) {
+        final int[] rect = {x1, y1, x2, y2, plane};
+
+        for (int regionX = x1 >> 6; regionX <= x2 >> 6; ++regionX) {
+            for (int regionY = y1 >> 6; regionY <= y2 >> 6; ++regionY) {
+                final int region = (regionX << 8) | regionY;
+                if (byRegion.containsKey(region) && byRegion.get(region) == null)
+                    continue;
+
+                // Covers the whole region, no need to check the rectangle there
+                if (plane == ANY_PLANE && x1 <= regionX << 6 && y1 <= regionY << 6
+                        && x2 >= (regionX << 6) + 63 && y2 >= (regionY << 6) + 63) {
+                    byRegion.put(region, null);
+                    continue;
+                }
+
+                byRegion.computeIfAbsent(region, k -> new ArrayList<>()).add(rect);
+            }
+        }
+    }
+
+    private static int regionId(int x, int y) {
+        return ((x >> 6) << 8) | (y >> 6);
+    }
+
+    private static int clamp(int coordinate) {
+        return Math.max(0, Math.min(MAX_COORDINATE, coordinate));
+    }
+}
@@ -0,0 +1,124 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import com.ClanEventAttendance.config.ClanChannelType;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Which running events an incoming spawn or chat event is for. Events are
+ * bits in a mask, so a player event is matched against every running event
+ * at once instead of asking each of them. Each member also keeps the mask of
+ * the events they are in, a despawn only touches those.
+ * Client thread only.
+ */
+final class EventIndex {
+    static final int MAX_EVENTS = Long.SIZE;
+    // The event started from the panel, named events take the other slots
+    static final int PRIMARY = 0;
+
+    private long running;
+    private long clanChatEvents;
+    private long friendsChatEvents;
+
+    // Events each member is in, by member slot
+    private final Map<String, Integer> slotsByKey = new HashMap<>();
+    private long[] memberEvents = new long[64];
+
+    // Also used to change the chat of a running event
+    void register(int event, ClanChannelType filter) {
+        final long bit = 1L << event;
+        running |= bit;
+        clanChatEvents = filter == ClanChannelType.FRIENDS_CHAT ? clanChatEvents & ~bit : clanChatEvents | bit;
+        friendsChatEvents = filter == ClanChannelType.CLAN_CHAT ? friendsChatEvents & ~bit : friendsChatEvents | bit;
+    }
+
+    void unregister(int event) {
+        final long keep = ~(1L << event);
+        running &= keep;
+        clanChatEvents &= keep;
+        friendsChatEvents &= keep;
+
+        if (running == 0) {
+            slotsByKey.clear();
+            return;
+        }
+
+        for (int slot = 0; slot < slotsByKey.size(); ++slot) {
+            memberEvents[slot] &= keep;
+        }
+    }
+
+    boolean isRunning(int event) {
+        return (running & (1L << event)) != 0;
+    }
+
+    boolean isEmpty() {
+        return running == 0;
+    }
+
+    // A free slot for a named event, or -1 when all are taken
+    int freeEvent() {
+        final long free = ~running & ~(1L << PRIMARY);
+        return free == 0 ? -1 : Long.numberOfTrailingZeros(free);
+    }
+
+    long clanChatEvents() {
+        return clanChatEvents;
+    }
+
+    long friendsChatEvents() {
+        return friendsChatEvents;
+    }
+
+    // The events a player in those chats counts for
+    long interested(boolean clanMember, boolean friendsChatMember) {
+        return (clanMember ? clanChatEvents : 0) | (friendsChatMember ? friendsChatEvents : 0);
+    }
+
+    long memberEvents(String key) {
+        final Integer slot = slotsByKey.get(key);
+        return slot == null ? 0 : memberEvents[slot];
+    }
+
+    void addMember(String key, long events) {
+        Integer slot = slotsByKey.get(key);
+        if (slot == null) {
+            slot = slotsByKey.size();
+            if (slot == memberEvents.length) {
+                memberEvents = Arrays.copyOf(memberEvents, slot * 2);
+            }
+            memberEvents[slot] = 0;
+            slotsByKey.put(key, slot);
+        }
+
+        memberEvents[slot] |= events;
+    }
+}
@@ -0,0 +1,325 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.io.BufferedReader;
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.io.OutputStreamWriter;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.ScheduledExecutorService;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import lombok.AllArgsConstructor;
+import lombok.Getter;
+import lombok.extern.slf4j.Slf4j;
+
+/**
+ * Line-delimited journal of the presence transitions of the running event.
+ * Lines are buffered on the client thread and appended to disk in batches on
+ * the executor, so an event interrupted by a crash or restart can be rebuilt
+ * with {@link #replay(File)}.
+ *
+ * Ticks are stored relative to the event start, fields are tab separated:
+ * <pre>
+ * S  version  startMillis  attendanceFile   event started
+ * A  tick  key  name                        member added
+ * P  tick  key                              member present
+ * X  tick  key                              member absent
+ * T  tick                                   checkpoint
+ * E  tick                                   event stopped
+ * </pre>
+ * The journal is deleted once its event is stopped or the resume is declined,
+ * the stop line only keeps it from being offered again if that fails.
+ */
+@Slf4j
+@Singleton
+class EventJournal {
+    static final String FILE_PREFIX = "event-";
+    static final String FILE_SUFFIX = ".journal";
+
+    private static final int VERSION = 1;
+
+    @Getter
+    @AllArgsConstructor
+    static class RecoveredMember {
+        private final String key;
+        private final String name;
+        private final int ticksLate;
+        private int ticksTotal;
+        private int presentSince;
+        private int joins;
+        private int leaves;
+        // Was still present when the journal ended, closed at its last tick
+        private boolean closedAtEnd;
+        // start, end pairs
+        private final List<int[]> intervals = new ArrayList<>();
+    }
+
+    @Getter
+    @AllArgsConstructor
+    static class Recovery {
+        private final File file;
+        private final long startMillis;
+        private final String attendanceFileName;
+        private final int lastTick;
+        private final boolean finished;
+        private final List<RecoveredMember> members;
+    }
+
+    @AllArgsConstructor
+    private static class Batch {
+        private final File file;
+        // Null deletes the file
+        private final String lines;
+    }
+
+    private final StringBuilder buffer = new StringBuilder();
+    private final ConcurrentLinkedQueue<Batch> batches = new ConcurrentLinkedQueue<>();
+    private File file;
+
+    @Inject
+    private ScheduledExecutorService executor;
+
+    boolean isOpen() {
+        return file != null;
+    }
+
+    void start(File file, long startMillis, File attendanceFile) {
+        this.file = file;
+        buffer.setLength(0);
+        buffer.append("S\t").append(VERSION)
+                .append('\t').append(startMillis)
+                .append('\t').append(attendanceFile == null ? "-" : attendanceFile.getName())
+                .append('\n');
+        flush();
+    }
+
+    /**
+     * Appends to a replayed journal. Members replay closed at its last tick are
+     * closed in the journal too, so they aren't counted present for the time
+     * the client was gone if it has to be replayed again.
+     */
+    void resume(Recovery recovery) {
+        this.file = recovery.getFile();
+        buffer.setLength(0);
+
+        for (RecoveredMember member : recovery.getMembers()) {
+            if (member.closedAtEnd)
+                absent(recovery.getLastTick(), member.getKey());
+        }
+    }
+
+    // Stops journaling without marking the event as stopped
+    void close() {
+        flush();
+        file = null;
+    }
+
+    void added(int tick, String key, String name) {
+        if (file == null)
+            return;
+
+        buffer.append("A\t").append(tick).append('\t').append(key).append('\t').append(name).append('\n');
+    }
+
+    void present(int tick, String key) {
+        if (file == null)
+            return;
+
+        buffer.append("P\t").append(tick).append('\t').append(key).append('\n');
+    }
+
+    void absent(int tick, String key) {
+        if (file == null)
+            return;
+
+        buffer.append("X\t").append(tick).append('\t').append(key).append('\n');
+    }
+
+    void checkpoint(int tick) {
+        if (file == null)
+            return;
+
+        buffer.append("T\t").append(tick).append('\n');
+        flush();
+    }
+
+    void finish(int tick) {
+        if (file == null)
+            return;
+
+        buffer.append("E\t").append(tick).append('\n');
+        flush();
+        delete(file);
+        file = null;
+    }
+
+    // A journal that won't be resumed is stopped and deleted, so it isn't offered again
+    void abandon(Recovery recovery) {
+        batches.add(new Batch(recovery.getFile(), "E\t" + recovery.getLastTick() + "\n"));
+        delete(recovery.getFile());
+    }
+
+    void flush() {
+        if (file == null || buffer.length() == 0)
+            return;
+
+        batches.add(new Batch(file, buffer.toString()));
+        buffer.setLength(0);
+        executor.execute(this::drain);
+    }
+
+    // Queued behind the file's pending batches
+    private void delete(File file) {
+        batches.add(new Batch(file, null));
+        executor.execute(this::drain);
+    }
+
+    // Synchronized so batches land in the order they were flushed
+    private synchronized void drain() {
+        Batch batch;
+        while ((batch = batches.poll()) != null) {
+            if (batch.lines == null) {
+                if (batch.file.exists() && !batch.file.delete()) {
+                    log.warn("Failed to delete event journal {}", batch.file);
+                }
+                continue;
+            }
+
+            final File dir = batch.file.getParentFile();
+            if (!dir.exists()) {
+                dir.mkdirs();
+            }
+
+            try (Writer out = new OutputStreamWriter(new FileOutputStream(batch.file, true), StandardCharsets.UTF_8)) {
+                out.write(batch.lines);
+            } catch (IOException e) {
+                log.error("Failed to write event journal", e);
+            }
+        }
+    }
+
+    // The most recent journal in dir, journal names sort by their timestamp
+    static File findLatest(File dir) {
+        final File[] files = dir.listFiles((d, name) -> name.startsWith(FILE_PREFIX) && name.endsWith(FILE_SUFFIX));
+        if (files == null || files.length == 0)
+            return null;
+
+        Arrays.sort(files);
+        return files[files.length - 1];
+    }
+
+    /**
+     * Rebuilds the attendance of a journaled event. Intervals still open at
+     * the end of the journal are closed at the last tick it recorded, as a leave.
+     */
+    static Recovery replay(File file) throws IOException {
+        final Map<String, RecoveredMember> members = new HashMap<>();
+        final List<RecoveredMember> ordered = new ArrayList<>();
+        long startMillis = 0;
+        String attendanceFileName = null;
+        int lastTick = 0;
+        boolean finished = false;
+
+        try (BufferedReader in = Files.newBufferedReader(file.toPath(), StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = in.readLine()) != null) {
+                // A crash can leave a partial last line behind
+                final String[] fields = line.split("\t", 4);
+                if (fields.length < 2)
+                    continue;
+
+                try {
+                    if (fields[0].equals("S")) {
+                        startMillis = Long.parseLong(fields[2]);
+                        attendanceFileName = fields[3].equals("-") ? null : fields[3];
+                        continue;
+                    }
+
+                    final int tick = Integer.parseInt(fields[1]);
+                    lastTick = Math.max(lastTick, tick);
+
+                    switch (fields[0]) {
+                        case "A":
+                            if (fields.length == 4 && !members.containsKey(fields[2])) {
+                                final RecoveredMember member = new RecoveredMember(fields[2], fields[3], tick, 0, -1, 0, 0, false);
+                                members.put(member.key, member);
+                                ordered.add(member);
+                            }
+                            break;
+                        case "P": {
+                            final RecoveredMember member = members.get(fields[2]);
+                            if (member != null && member.presentSince < 0) {
+                                member.presentSince = tick;
+                                ++member.joins;
+                            }
+                            break;
+                        }
+                        case "X": {
+                            final RecoveredMember member = members.get(fields[2]);
+                            if (member != null && member.presentSince >= 0) {
+                                member.ticksTotal += tick - member.presentSince;
+                                member.intervals.add(new int[] { member.presentSince, tick });
+                                member.presentSince = -1;
+                                ++member.leaves;
+                            }
+                            break;
+                        }
+                        case "E":
+                            finished = true;
+                            break;
+                    }
+                } catch (RuntimeException e) {
+                    // Skip the malformed line, keep what we can
+                }
+            }
+        }
+
+        for (RecoveredMember member : ordered) {
+            if (member.presentSince >= 0) {
+                member.ticksTotal += lastTick - member.presentSince;
+                member.intervals.add(new int[] { member.presentSince, lastTick });
+                member.presentSince = -1;
+                member.closedAtEnd = true;
+                ++member.leaves;
+            }
+        }
+
+        return new Recovery(file, startMillis, attendanceFileName, lastTick, finished, ordered);
+    }
+}
@@ -0,0 +1,158 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import com.ClanEventAttendance.config.ClanChannelType;
+import java.io.File;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashSet;
+import java.util.List;
+import java.util.Set;
+import lombok.Getter;
+import lombok.Value;
+
+/**
+ * A named event tracked next to the one started from the panel, with its own
+ * chat, thresholds and output file. Which members it sees is decided by
+ * {@link EventIndex}, its {@link AttendanceEngine} keeps their attendance.
+ * Client thread only.
+ */
+class EventTracker {
+    @Value
+    static class Definition {
+        String name;
+        ClanChannelType filter;
+        int presentThreshold;
+        int lateThreshold;
+    }
+
+    @Getter
+    private final Definition definition;
+    @Getter
+    private final int startedAt;
+    @Getter
+    private final File file;
+    private int stoppedAt;
+    @Getter
+    private boolean running = true;
+
+    // Named events aren't journaled, nothing listens to their changes
+    private final AttendanceEngine engine = new AttendanceEngine(AttendanceEngine.Listener.NONE);
+
+    EventTracker(Definition definition, int startedAt, File file) {
+        this.definition = definition;
+        this.startedAt = startedAt;
+        this.file = file;
+        engine.start(startedAt);
+    }
+
+    void present(String key, String name, int tick) {
+        engine.present(key, name, tick);
+    }
+
+    void absent(String key, int tick) {
+        engine.absent(key, tick);
+    }
+
+    boolean isPresent(String key) {
+        return engine.isPresent(key);
+    }
+
+    void stop(int tick) {
+        engine.stop(tick);
+        stoppedAt = tick;
+        running = false;
+    }
+
+    int size() {
+        return engine.getAttendance().size();
+    }
+
+    AttendanceText text(int tick, boolean lateMembers) {
+        final int at = running ? tick : stoppedAt;
+        return AttendanceText.of(engine.getAttendance(), at, ClanEventAttendancePlugin.ticksToSeconds(at - startedAt),
+                definition.presentThreshold, definition.lateThreshold, lateMembers,
+                definition.name, null, false);
+    }
+
+    /**
+     * Reads the named events option, one event per line:
+     * name, chat (clan, friends or both), time threshold and late threshold in seconds.
+     * The chat and thresholds may be left out, ex: "Skilling, clan" uses the
+     * thresholds of the main event. Lines that can't be read and repeated names
+     * are skipped.
+     */
+    static List<Definition> parse(String text, int presentThreshold, int lateThreshold) {
+        if (text == null || text.trim().isEmpty())
+            return Collections.emptyList();
+
+        final List<Definition> definitions = new ArrayList<>();
+        final Set<String> names = new HashSet<>();
+
+        for (String line : text.split("\\r?\\n|\\r")) {
+            final String[] fields = line.split(",");
+            final String name = fields[0].trim();
+            if (name.isEmpty())
+                continue;
+
+            try {
+                final ClanChannelType filter = fields.length > 1 ? parseFilter(fields[1].trim()) : ClanChannelType.BOTH_CHATS;
+                final int present = fields.length > 2 ? Integer.parseInt(fields[2].trim()) : presentThreshold;
+                final int late = fields.length > 3 ? Integer.parseInt(fields[3].trim()) : lateThreshold;
+
+                if (filter == null || present < 0 || late < 0 || names.contains(name))
+                    continue;
+
+                names.add(name);
+
+                definitions.add(new Definition(name, filter, present, late));
+            } catch (NumberFormatException e) {
+                // Skipped, like any other line that can't be read
+            }
+        }
+
+        return definitions;
+    }
+
+    private static ClanChannelType parseFilter(String text) {
+        switch (text.toLowerCase()) {
+            case "clan":
+            case "cc":
+                return ClanChannelType.CLAN_CHAT;
+            case "friends":
+            case "fc":
+                return ClanChannelType.FRIENDS_CHAT;
+            case "both":
+            case "":
+                return ClanChannelType.BOTH_CHATS;
+            default:
+                return null;
+        }
+    }
+}
@@ -0,0 +1,152 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.awt.BorderLayout;
+import java.awt.Font;
+import java.awt.GridLayout;
+import java.text.SimpleDateFormat;
+import java.util.Date;
+import java.util.List;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import javax.inject.Inject;
+import javax.swing.JButton;
+import javax.swing.JLabel;
+import javax.swing.JPanel;
+import javax.swing.JSpinner;
+import javax.swing.JTextField;
+import javax.swing.SpinnerNumberModel;
+import javax.swing.SwingUtilities;
+import javax.swing.border.EmptyBorder;
+import net.runelite.client.ui.ColorScheme;
+
+/**
+ * Queries the attendance history: the events one member attended, or every
+ * member ranked by attended events when the name is left empty.
+ */
+class HistoryPanel extends JPanel {
+    private final JTextField nameField = new JTextField();
+    private final JSpinner daysSpinner = new JSpinner(new SpinnerNumberModel(30, 1, 3650, 1));
+    private final JSpinner minMinutesSpinner = new JSpinner(new SpinnerNumberModel(10, 0, 1440, 1));
+    private final JButton searchButton = new JButton("Search History");
+    private final JLabel resultLabel = new JLabel();
+
+    @Inject
+    private ScheduledExecutorService executor;
+
+    private AttendanceHistory history;
+
+    void init(AttendanceHistory history) {
+        this.history = history;
+
+        removeAll();
+        setLayout(new BorderLayout(0, 5));
+        setBorder(new EmptyBorder(10, 0, 0, 0));
+        setOpaque(false);
+
+        final JPanel fieldsPanel = new JPanel(new GridLayout(3, 2, 5, 5));
+        fieldsPanel.setOpaque(false);
+        fieldsPanel.add(new JLabel("Member"));
+        fieldsPanel.add(nameField);
+        fieldsPanel.add(new JLabel("Last days"));
+        fieldsPanel.add(daysSpinner);
+        fieldsPanel.add(new JLabel("Min. minutes"));
+        fieldsPanel.add(minMinutesSpinner);
+
+        resultLabel.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        resultLabel.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        resultLabel.setOpaque(true);
+        resultLabel.setBorder(new EmptyBorder(5, 5, 5, 5));
+
+        searchButton.setFocusable(false);
+        if (searchButton.getActionListeners().length > 0) {
+            searchButton.removeActionListener(searchButton.getActionListeners()[0]);
+        }
+        searchButton.addActionListener(e -> search());
+
+        add(fieldsPanel, BorderLayout.NORTH);
+        add(searchButton, BorderLayout.CENTER);
+        add(resultLabel, BorderLayout.SOUTH);
+    }
+
+    private void search() {
+        final String name = nameField.getText().trim();
+        final int days = (Integer) daysSpinner.getValue();
+        final int minTicks = (Integer) minMinutesSpinner.getValue() * 100; // 100 ticks per minute
+
+        final long to = System.currentTimeMillis();
+        final long from = to - TimeUnit.DAYS.toMillis(days);
+
+        searchButton.setEnabled(false);
+
+        // The history is read from disk the first time
+        executor.execute(() -> {
+            final String result = name.isEmpty()
+                    ? summaryText(from, to, minTicks)
+                    : memberText(name, from, to, minTicks);
+
+            SwingUtilities.invokeLater(() -> {
+                resultLabel.setText(result);
+                searchButton.setEnabled(true);
+            });
+        });
+    }
+
+    private String memberText(String name, long from, long to, int minTicks) {
+        final List<AttendanceHistory.Attendance> attendances = history.memberHistory(NameKeyCache.normalize(name), from, to, minTicks);
+        final SimpleDateFormat dateFormat = new SimpleDateFormat("yyyy-MM-dd");
+
+        final StringBuilder sb = new StringBuilder("<html><body><pre>");
+        sb.append(String.format("%d of %d events<br/><br/>", attendances.size(), history.eventCount(from, to)));
+
+        for (AttendanceHistory.Attendance attendance : attendances) {
+            sb.append(String.format("%-10s | %s<br/>",
+                    dateFormat.format(new Date(attendance.getStartMillis())),
+                    ClanEventAttendancePlugin.timeFormat(ClanEventAttendancePlugin.ticksToSeconds(attendance.getTicksTotal()))));
+        }
+
+        sb.append("</pre></body></html>");
+        return sb.toString();
+    }
+
+    private String summaryText(long from, long to, int minTicks) {
+        final List<AttendanceHistory.MemberSummary> summaries = history.summary(from, to, minTicks);
+
+        final StringBuilder sb = new StringBuilder("<html><body><pre>");
+        sb.append(String.format("%d events<br/><br/>", history.eventCount(from, to)));
+        sb.append(String.format("%-12s | %-6s<br/>", "Name", "Events"));
+
+        for (AttendanceHistory.MemberSummary summary : summaries) {
+            sb.append(String.format("%-12s | %-6d<br/>", summary.getName(), summary.getEvents()));
+        }
+
+        sb.append("</pre></body></html>");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,114 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.util.EnumMap;
+import java.util.Map;
+import javax.inject.Singleton;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+
+/**
+ * How long the plugin spends in its client thread hot paths. Off by default,
+ * a disabled probe costs a field read. Client thread only, the report is
+ * built there and handed over as text.
+ */
+@Singleton
+class Instrumentation {
+    @Getter
+    @RequiredArgsConstructor
+    enum Probe {
+        GAME_TICK("onGameTick"),
+        PLAYER_SPAWNED("onPlayerSpawned"),
+        PLAYER_DESPAWNED("onPlayerDespawned"),
+        CLAN_MEMBER_JOINED("onClanMemberJoined"),
+        CLAN_MEMBER_LEFT("onClanMemberLeft"),
+        FRIENDS_CHAT_MEMBER_JOINED("onFriendsChatMemberJoined"),
+        FRIENDS_CHAT_MEMBER_LEFT("onFriendsChatMemberLeft"),
+        GENERATE_TEXT_DATA("generateTextData"),
+        SAVE_ATTENDANCE("saveAttendanceToFile");
+
+        private final String label;
+    }
+
+    private final Map<Probe, LatencyHistogram> histograms = new EnumMap<>(Probe.class);
+    private boolean enabled;
+
+    Instrumentation() {
+        for (Probe probe : Probe.values()) {
+            histograms.put(probe, new LatencyHistogram());
+        }
+    }
+
+    void setEnabled(boolean enabled) {
+        this.enabled = enabled;
+    }
+
+    // 0 when disabled, pass it back to record
+    long start() {
+        return enabled ? System.nanoTime() : 0;
+    }
+
+    void record(Probe probe, long start) {
+        if (start == 0)
+            return;
+
+        histograms.get(probe).record(System.nanoTime() - start);
+    }
+
+    void clear() {
+        for (LatencyHistogram histogram : histograms.values()) {
+            histogram.clear();
+        }
+    }
+
+    /**
+     * One line per probe, times in microseconds, ex:
+     * onGameTick                   1200      14.2      9.8     31.0     88.1    402.7
+     */
+    String report() {
+        final StringBuilder sb = new StringBuilder();
+        sb.append(String.format("%-26s %8s %9s %9s %9s %9s %9s %11s%n",
+                "Probe", "Count", "Mean", "p50", "p90", "p99", "Max", "Total ms"));
+
+        for (Probe probe : Probe.values()) {
+            final LatencyHistogram histogram = histograms.get(probe);
+            sb.append(String.format("%-26s %8d %9.1f %9.1f %9.1f %9.1f %9.1f %11.1f%n",
+                    probe.getLabel(),
+                    histogram.count(),
+                    histogram.mean() / 1000.0,
+                    histogram.percentile(0.5) / 1000.0,
+                    histogram.percentile(0.9) / 1000.0,
+                    histogram.percentile(0.99) / 1000.0,
+                    histogram.max() / 1000.0,
+                    histogram.total() / 1_000_000.0));
+        }
+
+        return sb.toString();
+    }
+}
@@ -0,0 +1,160 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.awt.BorderLayout;
+import java.awt.Color;
+import java.awt.Component;
+import java.awt.Font;
+import java.util.Arrays;
+import javax.swing.JComboBox;
+import javax.swing.JPanel;
+import javax.swing.JTable;
+import javax.swing.RowFilter;
+import javax.swing.SortOrder;
+import javax.swing.table.DefaultTableCellRenderer;
+import javax.swing.table.TableRowSorter;
+import lombok.Getter;
+import lombok.RequiredArgsConstructor;
+import net.runelite.client.ui.ColorScheme;
+
+/**
+ * The attendance as a table, sorted by clicking a column header and
+ * filtered by presence. Only the visible rows are painted, and an update
+ * only repaints the rows that changed.
+ */
+class MemberTablePanel extends JPanel {
+    @Getter
+    @RequiredArgsConstructor
+    private enum Filter {
+        ALL("All members"),
+        PRESENT("Present"),
+        ABSENT("Absent"),
+        BELOW_THRESHOLD("Below threshold");
+
+        private final String name;
+
+        @Override
+        public String toString() {
+            return name;
+        }
+    }
+
+    private final AttendanceTableModel model = new AttendanceTableModel();
+    private final JTable table = new JTable(model);
+    private final TableRowSorter<AttendanceTableModel> sorter = new TableRowSorter<>(model);
+    private final JComboBox<Filter> filterBox = new JComboBox<>(Filter.values());
+
+    private Color presentColor = Color.WHITE;
+    private Color absentColor = Color.WHITE;
+
+    MemberTablePanel() {
+        sorter.setSortsOnUpdates(true);
+        sorter.setSortKeys(Arrays.asList(new TableRowSorter.SortKey(AttendanceTableModel.NAME_COLUMN, SortOrder.ASCENDING)));
+        sorter.setComparator(AttendanceTableModel.NAME_COLUMN, String.CASE_INSENSITIVE_ORDER);
+        table.setRowSorter(sorter);
+
+        filterBox.setFocusable(false);
+        filterBox.addActionListener(e -> applyFilter());
+    }
+
+    void init(ClanEventAttendanceConfig config) {
+        presentColor = config.presentColor();
+        absentColor = config.absentColor();
+
+        removeAll();
+        setLayout(new BorderLayout(0, 5));
+        setOpaque(false);
+
+        table.setFont(new Font(Font.MONOSPACED, Font.PLAIN, 12));
+        table.setBackground(ColorScheme.DARKER_GRAY_COLOR);
+        table.setShowGrid(false);
+        table.setFillsViewportHeight(true);
+        table.setDefaultRenderer(String.class, new RowRenderer());
+        table.setDefaultRenderer(Integer.class, new RowRenderer());
+
+        // Put the late column back before removing it, the config may have changed
+        table.createDefaultColumnsFromModel();
+        if (!config.lateMembers()) {
+            table.removeColumn(table.getColumnModel().getColumn(AttendanceTableModel.LATE_COLUMN));
+        }
+        table.getColumnModel().getColumn(AttendanceTableModel.NAME_COLUMN).setPreferredWidth(110);
+
+        final JPanel tablePanel = new JPanel(new BorderLayout());
+        tablePanel.add(table.getTableHeader(), BorderLayout.NORTH);
+        tablePanel.add(table, BorderLayout.CENTER);
+
+        add(filterBox, BorderLayout.NORTH);
+        add(tablePanel, BorderLayout.CENTER);
+    }
+
+    void setRows(AttendanceTableModel.Rows rows) {
+        model.update(rows);
+    }
+
+    private void applyFilter() {
+        final Filter filter = (Filter) filterBox.getSelectedItem();
+        if (filter == null || filter == Filter.ALL) {
+            sorter.setRowFilter(null);
+            return;
+        }
+
+        sorter.setRowFilter(new RowFilter<AttendanceTableModel, Integer>() {
+            @Override
+            public boolean include(Entry<? extends AttendanceTableModel, ? extends Integer> entry) {
+                final int row = entry.getIdentifier();
+                switch (filter) {
+                    case PRESENT:
+                        return model.isPresent(row);
+                    case ABSENT:
+                        return !model.isPresent(row);
+                    default:
+                        return !model.isAboveThreshold(row);
+                }
+            }
+        });
+    }
+
+    // Same colors as the text list, times as mm:ss
+    private class RowRenderer extends DefaultTableCellRenderer {
+        @Override
+        public Component getTableCellRendererComponent(JTable table, Object value, boolean isSelected, boolean hasFocus, int row, int column) {
+            final Object text = value instanceof Integer
+                    ? ((Integer) value < 0 ? "-" : ClanEventAttendancePlugin.timeFormat((Integer) value))
+                    : value;
+            super.getTableCellRendererComponent(table, text, isSelected, false, row, column);
+
+            final int modelRow = table.convertRowIndexToModel(row);
+            if (!isSelected) {
+                setBackground(ColorScheme.DARKER_GRAY_COLOR);
+                setForeground(!model.isEventRunning() ? Color.WHITE : model.isPresent(modelRow) ? presentColor : absentColor);
+            }
+            return this;
+        }
+    }
+}
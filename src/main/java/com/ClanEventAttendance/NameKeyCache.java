@@ -0,0 +1,72 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.util.HashMap;
+import java.util.Map;
+import net.runelite.client.util.Text;
+
+/**
+ * Caches the normalized key of every display name seen during an event, so a
+ * name is only normalized once. Keys are interned, equal keys share one
+ * instance. Not thread safe, only used from the client thread.
+ */
+class NameKeyCache {
+    // A busy world shows a couple thousand players, well above what an event needs
+    private static final int MAX_ENTRIES = 4096;
+
+    private final Map<String, String> keysByName = new HashMap<>();
+    private final Map<String, String> internedKeys = new HashMap<>();
+
+    String toKey(String playerName) {
+        String key = keysByName.get(playerName);
+        if (key != null)
+            return key;
+
+        if (keysByName.size() >= MAX_ENTRIES)
+            clear();
+
+        key = normalize(playerName);
+
+        final String interned = internedKeys.putIfAbsent(key, key);
+        if (interned != null)
+            key = interned;
+
+        keysByName.put(playerName, key);
+        return key;
+    }
+
+    static String normalize(String playerName) {
+        return Text.toJagexName(playerName).toLowerCase();
+    }
+
+    void clear() {
+        keysByName.clear();
+        internedKeys.clear();
+    }
+}
@@ -0,0 +1,89 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.util.concurrent.atomic.AtomicReference;
+import javax.inject.Inject;
+import javax.inject.Singleton;
+import javax.swing.SwingUtilities;
+import lombok.Value;
+
+/**
+ * Hands panel updates from the client thread over to the Swing EDT.
+ * Only the latest snapshot is kept, a newer one replaces any snapshot the EDT
+ * has not picked up yet, so at most one update is ever queued.
+ */
+@Singleton
+class PanelPublisher {
+    // Either the text list or the table rows, depending on the panel
+    @Value
+    private static class Snapshot {
+        String text;
+        AttendanceTableModel.Rows rows;
+        boolean eventRunning;
+    }
+
+    private final AtomicReference<Snapshot> pending = new AtomicReference<>();
+
+    @Inject
+    private ClanEventAttendanceConfig config;
+
+    private ClanEventAttendancePanel panel;
+
+    void attach(ClanEventAttendancePanel panel) {
+        this.panel = panel;
+    }
+
+    void publish(String text, boolean eventRunning) {
+        publish(new Snapshot(text, null, eventRunning));
+    }
+
+    void publish(AttendanceTableModel.Rows rows, boolean eventRunning) {
+        publish(new Snapshot(null, rows, eventRunning));
+    }
+
+    private void publish(Snapshot snapshot) {
+        // Only schedule a drain if none is already waiting for this slot
+        if (pending.getAndSet(snapshot) == null) {
+            SwingUtilities.invokeLater(this::drain);
+        }
+    }
+
+    private void drain() {
+        final Snapshot snapshot = pending.getAndSet(null);
+
+        if (snapshot == null || panel == null)
+            return;
+
+        if (snapshot.getRows() != null)
+            panel.setRows(snapshot.getRows());
+        else
+            panel.setText(snapshot.getText());
+        panel.updatePanel(config, snapshot.isEventRunning());
+    }
+}
@@ -0,0 +1,118 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Presence changes of the current tick, one entry per member holding the
+ * events they became present and absent in. A later change replaces an
+ * earlier one for the same events, so a despawn and respawn within a tick
+ * leave nothing to apply. Client thread only, kept across ticks.
+ */
+final class PresenceChanges {
+    private static final int INITIAL_CAPACITY = 64;
+
+    private final Map<String, Integer> slotsByKey = new HashMap<>();
+    private String[] keys = new String[INITIAL_CAPACITY];
+    private String[] names = new String[INITIAL_CAPACITY];
+    private long[] presentEvents = new long[INITIAL_CAPACITY];
+    private long[] absentEvents = new long[INITIAL_CAPACITY];
+    private int size;
+
+    void present(String key, String name, long events) {
+        final int slot = slot(key);
+        names[slot] = name;
+        presentEvents[slot] |= events;
+        absentEvents[slot] &= ~events;
+    }
+
+    void absent(String key, long events) {
+        final int slot = slot(key);
+        absentEvents[slot] |= events;
+        presentEvents[slot] &= ~events;
+    }
+
+    int size() {
+        return size;
+    }
+
+    String key(int slot) {
+        return keys[slot];
+    }
+
+    // Null if the member only became absent
+    String name(int slot) {
+        return names[slot];
+    }
+
+    long presentEvents(int slot) {
+        return presentEvents[slot];
+    }
+
+    long absentEvents(int slot) {
+        return absentEvents[slot];
+    }
+
+    // The events the member became present in this tick, by key
+    long presentEvents(String key) {
+        final Integer slot = slotsByKey.get(key);
+        return slot == null ? 0 : presentEvents[slot];
+    }
+
+    void clear() {
+        slotsByKey.clear();
+        Arrays.fill(keys, 0, size, null);
+        Arrays.fill(names, 0, size, null);
+        size = 0;
+    }
+
+    private int slot(String key) {
+        final Integer existing = slotsByKey.get(key);
+        if (existing != null)
+            return existing;
+
+        if (size == keys.length) {
+            final int capacity = size * 2;
+            keys = Arrays.copyOf(keys, capacity);
+            names = Arrays.copyOf(names, capacity);
+            presentEvents = Arrays.copyOf(presentEvents, capacity);
+            absentEvents = Arrays.copyOf(absentEvents, capacity);
+        }
+
+        final int slot = size++;
+        keys[slot] = key;
+        names[slot] = null;
+        presentEvents[slot] = 0;
+        absentEvents[slot] = 0;
+        slotsByKey.put(key, slot);
+        return slot;
+    }
+}
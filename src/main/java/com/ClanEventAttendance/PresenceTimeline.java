@@ -0,0 +1,255 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.util.Arrays;
+
+/**
+ * Presence intervals of every member during an event, indexed by their
+ * {@link AttendanceStore} id. Intervals are [start, end) in event ticks,
+ * built from the present/absent transitions.
+ *
+ * Closed intervals are delta encoded, each one as the gap since the previous
+ * interval ended and its length, written as varints into a byte array per
+ * member. Most intervals take 2 to 4 bytes, so thousands of them across a
+ * large event stay within a few kilobytes. Not thread safe, only used from
+ * the client thread.
+ */
+class PresenceTimeline {
+    private static final int CLOSED = -1;
+    private static final int INITIAL_MEMBERS = 64;
+    private static final int INITIAL_BYTES = 16;
+
+    private byte[][] encoded = new byte[INITIAL_MEMBERS][];
+    private int[] encodedLength = new int[INITIAL_MEMBERS];
+    private int[] intervalCount = new int[INITIAL_MEMBERS];
+    // End of the last closed interval
+    private int[] lastEnd = new int[INITIAL_MEMBERS];
+    private int[] openSince = new int[INITIAL_MEMBERS];
+    private int size;
+    // Read position of readVarint
+    private int cursor;
+
+    PresenceTimeline() {
+        Arrays.fill(openSince, CLOSED);
+    }
+
+    void open(int id, int tick) {
+        ensureMember(id);
+        if (openSince[id] == CLOSED)
+            openSince[id] = tick;
+    }
+
+    void close(int id, int tick) {
+        if (id >= size || openSince[id] == CLOSED)
+            return;
+
+        final int start = openSince[id];
+        openSince[id] = CLOSED;
+        append(id, start, tick);
+    }
+
+    /**
+     * Adds a closed interval after the member's last one, ex: when restoring
+     * a resumed event. Empty intervals are dropped.
+     */
+    void append(int id, int start, int end) {
+        ensureMember(id);
+
+        start = Math.max(start, lastEnd[id]);
+        if (end <= start)
+            return;
+
+        // 2 varints, 5 bytes each at most
+        if (encodedLength[id] + 10 > encoded[id].length)
+            encoded[id] = Arrays.copyOf(encoded[id], encoded[id].length * 2);
+
+        writeVarint(id, start - lastEnd[id]);
+        writeVarint(id, end - start);
+        lastEnd[id] = end;
+        ++intervalCount[id];
+    }
+
+    boolean isPresentAt(int id, int tick) {
+        if (id >= size)
+            return false;
+
+        if (openSince[id] != CLOSED && tick >= openSince[id])
+            return true;
+
+        if (tick >= lastEnd[id])
+            return false;
+
+        final byte[] bytes = encoded[id];
+        final int length = encodedLength[id];
+        int end = 0;
+        cursor = 0;
+
+        while (cursor < length) {
+            final int start = end + readVarint(bytes);
+            if (tick < start)
+                return false;
+
+            end = start + readVarint(bytes);
+            if (tick < end)
+                return true;
+        }
+
+        return false;
+    }
+
+    /**
+     * Ticks the member was present within [from, to), counting the open
+     * interval up to to.
+     */
+    int ticksPresent(int id, int from, int to) {
+        if (id >= size || to <= from)
+            return 0;
+
+        final int[] intervals = intervals(id, to);
+        int ticks = 0;
+
+        for (int i = 0; i < intervals.length; i += 2) {
+            final int start = Math.max(intervals[i], from);
+            final int end = Math.min(intervals[i + 1], to);
+            if (end > start)
+                ticks += end - start;
+        }
+
+        return ticks;
+    }
+
+    int intervalCount(int id) {
+        if (id >= size)
+            return 0;
+
+        return intervalCount[id] + (openSince[id] != CLOSED ? 1 : 0);
+    }
+
+    boolean isOpen(int id) {
+        return id < size && openSince[id] != CLOSED;
+    }
+
+    /**
+     * The member's intervals as start, end pairs, with the open one closed
+     * at tick.
+     */
+    int[] intervals(int id, int tick) {
+        final int[] intervals = new int[intervalCount(id) * 2];
+        intervals(id, tick, intervals);
+        return intervals;
+    }
+
+    /**
+     * Writes the member's intervals into out, which must hold
+     * intervalCount(id) * 2 ints, and returns how many ints were written.
+     */
+    int intervals(int id, int tick, int[] out) {
+        if (id >= size)
+            return 0;
+
+        final byte[] bytes = encoded[id];
+        final int length = encodedLength[id];
+        int end = 0;
+        int i = 0;
+        cursor = 0;
+
+        while (cursor < length) {
+            final int start = end + readVarint(bytes);
+            end = start + readVarint(bytes);
+            out[i++] = start;
+            out[i++] = end;
+        }
+
+        if (openSince[id] != CLOSED) {
+            out[i++] = openSince[id];
+            out[i++] = Math.max(tick, openSince[id]);
+        }
+
+        return i;
+    }
+
+    // Keeps the byte arrays, the next event reuses them
+    void clear() {
+        Arrays.fill(encodedLength, 0, size, 0);
+        Arrays.fill(intervalCount, 0, size, 0);
+        Arrays.fill(lastEnd, 0, size, 0);
+        Arrays.fill(openSince, 0, size, CLOSED);
+        size = 0;
+    }
+
+    private void writeVarint(int id, int value) {
+        final byte[] bytes = encoded[id];
+        int position = encodedLength[id];
+
+        while ((value & ~0x7F) != 0) {
+            bytes[position++] = (byte) ((value & 0x7F) | 0x80);
+            value >>>= 7;
+        }
+        bytes[position++] = (byte) value;
+
+        encodedLength[id] = position;
+    }
+
+    private int readVarint(byte[] bytes) {
+        int value = 0;
+        int shift = 0;
+        byte b;
+
+        do {
+            b = bytes[cursor++];
+            value |= (b & 0x7F) << shift;
+            shift += 7;
+        } while (b < 0);
+
+        return value;
+    }
+
+    private void ensureMember(int id) {
+        if (id < size)
+            return;
+
+        if (id >= encoded.length) {
+            final int previous = encoded.length;
+            final int capacity = Math.max(previous * 2, id + 1);
+            encoded = Arrays.copyOf(encoded, capacity);
+            encodedLength = Arrays.copyOf(encodedLength, capacity);
+            intervalCount = Arrays.copyOf(intervalCount, capacity);
+            lastEnd = Arrays.copyOf(lastEnd, capacity);
+            openSince = Arrays.copyOf(openSince, capacity);
+            Arrays.fill(openSince, previous, capacity, CLOSED);
+        }
+
+        for (int i = size; i <= id; ++i) {
+            if (encoded[i] == null)
+                encoded[i] = new byte[INITIAL_BYTES];
+        }
+
+        size = id + 1;
+    }
+}
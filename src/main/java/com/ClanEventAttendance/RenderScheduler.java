@@ -27,14 +27,38 @@ OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
  */
 package com.ClanEventAttendance;
 
-import lombok.AllArgsConstructor;
-import net.runelite.api.Player;
-
-@AllArgsConstructor
-class MemberAttendance {
-    public Player member;
-    public Integer ticksLate;
-    public Integer tickActivityStarted;
-    public Integer ticksTotal;
-    public boolean isPresent;
-}
\ No newline at end of file
+import javax.inject.Singleton;
+
+/**
+ * Throttles rebuilding the attendance list while an event runs. Durations
+ * keep growing, so a running list is always stale, it is rebuilt at the
+ * configured refresh rate while the sidebar panel is shown and not at all
+ * while it is hidden. Stopping an event renders the final list directly.
+ *
+ * Client thread only.
+ */
+@Singleton
+class RenderScheduler {
+    private boolean panelVisible;
+    private int lastRenderTick = Integer.MIN_VALUE;
+
+    void setPanelVisible(boolean visible) {
+        if (visible && !panelVisible) {
+            // Render on the next tick, whatever the refresh rate
+            lastRenderTick = Integer.MIN_VALUE;
+        }
+
+        panelVisible = visible;
+    }
+
+    boolean shouldRender(int currentTick, int refreshTicks) {
+        if (!panelVisible)
+            return false;
+
+        return lastRenderTick == Integer.MIN_VALUE || currentTick - lastRenderTick >= Math.max(1, refreshTicks);
+    }
+
+    void rendered(int currentTick) {
+        lastRenderTick = currentTick;
+    }
+}
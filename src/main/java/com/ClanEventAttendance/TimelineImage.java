@@ -0,0 +1,285 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.awt.Color;
+import java.awt.Font;
+import java.awt.FontMetrics;
+import java.awt.Graphics2D;
+import java.awt.RenderingHints;
+import java.awt.image.BufferedImage;
+import java.util.Arrays;
+import net.runelite.client.ui.ColorScheme;
+
+/**
+ * Draws the presence timeline of every member, one row each, under a
+ * heatmap of how many members were present over the event. Rows are drawn
+ * with Java2D into an offscreen image kept between renders, and only rows
+ * whose intervals, open interval or name color changed are drawn again.
+ *
+ * While the event runs, a pixel covers a power of two ticks so the scale,
+ * and with it every row, only changes when the event doubles in length.
+ * Not thread safe, rendered on the client thread.
+ */
+class TimelineImage {
+    private static final int PADDING = 8;
+    private static final int NAME_WIDTH = 100;
+    private static final int PLOT_WIDTH = 480;
+    private static final int HEATMAP_HEIGHT = 24;
+    private static final int AXIS_HEIGHT = 16;
+    private static final int ROW_HEIGHT = 14;
+    // The image grows by this many rows at a time
+    private static final int ROW_CAPACITY_STEP = 64;
+
+    private static final int WIDTH = PADDING * 2 + NAME_WIDTH + PLOT_WIDTH;
+    private static final int PLOT_X = PADDING + NAME_WIDTH;
+    private static final int HEATMAP_Y = PADDING;
+    private static final int AXIS_Y = HEATMAP_Y + HEATMAP_HEIGHT;
+    private static final int ROWS_Y = AXIS_Y + AXIS_HEIGHT;
+
+    private static final Color BACKGROUND = ColorScheme.DARKER_GRAY_COLOR;
+    private static final Color TRACK = ColorScheme.DARK_GRAY_COLOR;
+    private static final Color TEXT = Color.WHITE;
+    private static final Font FONT = new Font(Font.SANS_SERIF, Font.PLAIN, 11);
+
+    private BufferedImage image;
+    private Graphics2D graphics;
+    private int rowCapacity;
+    private int ticksPerPixel;
+    private Color presentColor;
+    private Color absentColor;
+
+    // What each row was last drawn with
+    private int[] rowIds = new int[0];
+    private long[] rowStates = new long[0];
+    private int renderedRows;
+
+    private int[] intervals = new int[16];
+    private final int[] heat = new int[PLOT_WIDTH + 1];
+
+    /**
+     * @param currentTick the client tick the attendance totals are taken at
+     * @param tick the same tick relative to the event start, open intervals
+     *             end there
+     * @param running whether the event still runs, a stopped event is fit
+     *                to the image width exactly
+     * @param presentThreshold in seconds, names below it use absentColor
+     * @return a copy of the image, safe to hand to other threads
+     */
+    BufferedImage render(AttendanceStore attendance, PresenceTimeline timeline, int currentTick, int tick, boolean running,
+                         int presentThreshold, Color presentColor, Color absentColor) {
+        final int rows = attendance.size();
+        final int scale = scale(tick, running);
+
+        boolean redrawAll = false;
+        if (image == null || rows > rowCapacity) {
+            allocate(rows);
+            redrawAll = true;
+        }
+
+        if (scale != ticksPerPixel || !presentColor.equals(this.presentColor) || !absentColor.equals(this.absentColor)) {
+            ticksPerPixel = scale;
+            this.presentColor = presentColor;
+            this.absentColor = absentColor;
+            redrawAll = true;
+        }
+
+        if (redrawAll) {
+            graphics.setColor(BACKGROUND);
+            graphics.fillRect(0, 0, image.getWidth(), image.getHeight());
+            drawAxis(tick);
+            Arrays.fill(rowIds, -1);
+        }
+
+        boolean changed = redrawAll;
+        for (int row = 0; row < rows; ++row) {
+            final int id = attendance.idAt(row);
+            final boolean above = ClanEventAttendancePlugin.ticksToSeconds(attendance.ticksTotalAt(id, currentTick)) >= presentThreshold;
+            final long state = rowState(timeline, id, tick, above);
+
+            if (rowIds[row] == id && rowStates[row] == state)
+                continue;
+
+            drawRow(row, attendance.name(id), timeline, id, tick, above);
+            rowIds[row] = id;
+            rowStates[row] = state;
+            changed = true;
+        }
+
+        // Rows left over from a previous event
+        if (rows < renderedRows) {
+            graphics.setColor(BACKGROUND);
+            graphics.fillRect(0, ROWS_Y + rows * ROW_HEIGHT, WIDTH, (renderedRows - rows) * ROW_HEIGHT);
+            Arrays.fill(rowIds, rows, renderedRows, -1);
+            changed = true;
+        }
+        renderedRows = rows;
+
+        if (changed)
+            drawHeatmap(attendance, timeline, tick);
+
+        final BufferedImage copy = new BufferedImage(WIDTH, ROWS_Y + rows * ROW_HEIGHT + PADDING, BufferedImage.TYPE_INT_RGB);
+        final Graphics2D g = copy.createGraphics();
+        g.drawImage(image, 0, 0, null);
+        g.dispose();
+        return copy;
+    }
+
+    private int scale(int tick, boolean running) {
+        final int ticks = Math.max(tick, 1);
+        final int exact = (ticks + PLOT_WIDTH - 1) / PLOT_WIDTH;
+        if (!running)
+            return exact;
+
+        return exact <= 1 ? 1 : Integer.highestOneBit(exact - 1) << 1;
+    }
+
+    // Everything drawing the row depends on, as a single value to compare
+    private long rowState(PresenceTimeline timeline, int id, int tick, boolean above) {
+        final long openEnd = timeline.isOpen(id) ? tick / ticksPerPixel + 1 : 0;
+        return ((long) timeline.intervalCount(id) << 32) | (openEnd << 1) | (above ? 1 : 0);
+    }
+
+    private void drawRow(int row, String name, PresenceTimeline timeline, int id, int tick, boolean above) {
+        final int y = ROWS_Y + row * ROW_HEIGHT;
+
+        graphics.setColor(BACKGROUND);
+        graphics.fillRect(0, y, WIDTH, ROW_HEIGHT);
+
+        // Below the present threshold in the absent color
+        graphics.setColor(above ? TEXT : absentColor);
+        graphics.setClip(PADDING, y, NAME_WIDTH - 4, ROW_HEIGHT);
+        final FontMetrics metrics = graphics.getFontMetrics();
+        graphics.drawString(name, PADDING, y + (ROW_HEIGHT + metrics.getAscent() - metrics.getDescent()) / 2);
+        graphics.setClip(null);
+
+        graphics.setColor(TRACK);
+        graphics.fillRect(PLOT_X, y + 2, PLOT_WIDTH, ROW_HEIGHT - 4);
+
+        final int count = readIntervals(timeline, id, tick);
+        graphics.setColor(presentColor);
+        for (int i = 0; i < count; i += 2) {
+            final int x0 = intervals[i] / ticksPerPixel;
+            final int x1 = Math.max(x0 + 1, (intervals[i + 1] + ticksPerPixel - 1) / ticksPerPixel);
+            graphics.fillRect(PLOT_X + x0, y + 2, Math.min(x1, PLOT_WIDTH) - x0, ROW_HEIGHT - 4);
+        }
+    }
+
+    // How many members were present in each column, shaded towards the present color
+    private void drawHeatmap(AttendanceStore attendance, PresenceTimeline timeline, int tick) {
+        Arrays.fill(heat, 0);
+
+        for (int id = 0; id < attendance.size(); ++id) {
+            final int count = readIntervals(timeline, id, tick);
+            for (int i = 0; i < count; i += 2) {
+                final int x0 = Math.min(intervals[i] / ticksPerPixel, PLOT_WIDTH);
+                final int x1 = Math.min(Math.max(x0 + 1, (intervals[i + 1] + ticksPerPixel - 1) / ticksPerPixel), PLOT_WIDTH);
+                ++heat[x0];
+                --heat[x1];
+            }
+        }
+
+        int max = 1;
+        int present = 0;
+        for (int x = 0; x < PLOT_WIDTH; ++x) {
+            present += heat[x];
+            heat[x] = present;
+            max = Math.max(max, present);
+        }
+
+        final int background = TRACK.getRGB();
+        final int color = presentColor.getRGB();
+        for (int x = 0; x < PLOT_WIDTH; ++x) {
+            final int rgb = blend(background, color, heat[x], max);
+            for (int y = HEATMAP_Y; y < HEATMAP_Y + HEATMAP_HEIGHT; ++y) {
+                image.setRGB(PLOT_X + x, y, rgb);
+            }
+        }
+
+        graphics.setColor(BACKGROUND);
+        graphics.fillRect(PADDING, HEATMAP_Y, NAME_WIDTH, HEATMAP_HEIGHT);
+        graphics.setColor(TEXT);
+        graphics.drawString("Present (max " + max + ")", PADDING, HEATMAP_Y + HEATMAP_HEIGHT / 2 + graphics.getFontMetrics().getAscent() / 2);
+    }
+
+    // Time labels, at most 6 of them on whole minutes
+    private void drawAxis(int tick) {
+        final int plotTicks = PLOT_WIDTH * ticksPerPixel;
+        final int plotMinutes = Math.max(1, ClanEventAttendancePlugin.ticksToSeconds(plotTicks) / 60);
+        int step = 1;
+        for (int candidate : new int[] { 1, 2, 5, 10, 15, 30, 60, 120, 240 }) {
+            step = candidate;
+            if (plotMinutes / candidate <= 6)
+                break;
+        }
+
+        final FontMetrics metrics = graphics.getFontMetrics();
+        graphics.setColor(TEXT);
+        for (int minute = 0; minute <= plotMinutes; minute += step) {
+            // 100 ticks per minute
+            final int x = PLOT_X + minute * 100 / ticksPerPixel;
+            final String label = ClanEventAttendancePlugin.timeFormat(minute * 60);
+            if (x + metrics.stringWidth(label) > WIDTH)
+                break;
+
+            graphics.drawLine(x, AXIS_Y, x, AXIS_Y + 3);
+            graphics.drawString(label, x, AXIS_Y + 3 + metrics.getAscent());
+        }
+    }
+
+    private int readIntervals(PresenceTimeline timeline, int id, int tick) {
+        final int needed = timeline.intervalCount(id) * 2;
+        if (needed > intervals.length)
+            intervals = new int[Math.max(needed, intervals.length * 2)];
+
+        return timeline.intervals(id, tick, intervals);
+    }
+
+    private void allocate(int rows) {
+        rowCapacity = (rows / ROW_CAPACITY_STEP + 1) * ROW_CAPACITY_STEP;
+
+        if (graphics != null)
+            graphics.dispose();
+
+        image = new BufferedImage(WIDTH, ROWS_Y + rowCapacity * ROW_HEIGHT + PADDING, BufferedImage.TYPE_INT_RGB);
+        graphics = image.createGraphics();
+        graphics.setFont(FONT);
+        graphics.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+
+        rowIds = Arrays.copyOf(rowIds, rowCapacity);
+        rowStates = Arrays.copyOf(rowStates, rowCapacity);
+        renderedRows = 0;
+    }
+
+    private static int blend(int from, int to, int amount, int max) {
+        final int r = ((from >> 16) & 0xFF) + (((to >> 16) & 0xFF) - ((from >> 16) & 0xFF)) * amount / max;
+        final int g = ((from >> 8) & 0xFF) + (((to >> 8) & 0xFF) - ((from >> 8) & 0xFF)) * amount / max;
+        final int b = (from & 0xFF) + ((to & 0xFF) - (from & 0xFF)) * amount / max;
+        return (r << 16) | (g << 8) | b;
+    }
+}
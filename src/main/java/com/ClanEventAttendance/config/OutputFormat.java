@@ -34,7 +34,10 @@ import lombok.RequiredArgsConstructor;
 @RequiredArgsConstructor
 public enum OutputFormat {
     PNG("PNG ", 0),
-    TEXT("Text", 1);
+    TEXT("Text", 1),
+    CSV("CSV", 2),
+    JSON("JSON", 3),
+    TIMELINE("Timeline", 4);
 
     private final String name;
     private final int value;
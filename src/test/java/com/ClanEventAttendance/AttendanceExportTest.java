@@ -0,0 +1,115 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import static org.junit.Assert.assertEquals;
+
+import com.ClanEventAttendance.config.OutputFormat;
+import java.io.IOException;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.TimeZone;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+public class AttendanceExportTest {
+    // 2023-11-14T22:13:20Z
+    private static final long START = 1_700_000_000_000L;
+
+    private TimeZone timeZone;
+
+    @Before
+    public void setUp() {
+        timeZone = TimeZone.getDefault();
+        TimeZone.setDefault(TimeZone.getTimeZone("UTC"));
+    }
+
+    @After
+    public void tearDown() {
+        TimeZone.setDefault(timeZone);
+    }
+
+    private static AttendanceExport export() {
+        return new AttendanceExport(START, 1000, 600, 300, Arrays.asList(
+                new AttendanceExport.Row("Alice", 1000, 0, false, true, 1, 1, new int[] { 0, 1000 }),
+                new AttendanceExport.Row("Bob, \"the\" Builder", 500, 600, true, false, 2, 2, new int[] { 600, 900, 1000, 1200 }),
+                new AttendanceExport.Row("Carl\\", 0, 0, false, false, 0, 0, new int[0])));
+    }
+
+    private static String write(AttendanceExport export, OutputFormat format) throws IOException {
+        final StringWriter out = new StringWriter();
+        export.write(out, format);
+        return out.toString();
+    }
+
+    @Test
+    public void csvHasHeaderAndQuotesNames() throws IOException {
+        assertEquals("name,above_threshold,time_ticks,time_seconds,late,late_ticks,late_seconds,joins,leaves\n"
+                + "Alice,true,1000,600,false,0,0,1,1\n"
+                + "\"Bob, \"\"the\"\" Builder\",false,500,300,true,600,360,2,2\n"
+                + "Carl\\,false,0,0,false,0,0,0,0\n", write(export(), OutputFormat.CSV));
+
+        final AttendanceExport multiline = new AttendanceExport(START, 0, 600, 300, Collections.singletonList(
+                new AttendanceExport.Row("Two\nLines", 0, 0, false, false, 0, 0, new int[0])));
+        assertEquals("\"Two\nLines\",false,0,0,false,0,0,0,0\n", write(multiline, OutputFormat.CSV).split("\n", 2)[1]);
+    }
+
+    @Test
+    public void jsonHasEventAndMembers() throws IOException {
+        assertEquals("{\n"
+                + "  \"startedAt\": \"2023-11-14T22:13:20Z\",\n"
+                + "  \"durationTicks\": 1000,\n"
+                + "  \"durationSeconds\": 600,\n"
+                + "  \"presentThresholdSeconds\": 600,\n"
+                + "  \"lateThresholdSeconds\": 300,\n"
+                + "  \"members\": [\n"
+                + "    {\"name\": \"Alice\", \"aboveThreshold\": true, \"timeTicks\": 1000, \"timeSeconds\": 600, \"late\": false, \"lateTicks\": 0, \"lateSeconds\": 0, \"joins\": 1, \"leaves\": 1, \"intervals\": [[0, 1000]]},\n"
+                + "    {\"name\": \"Bob, \\\"the\\\" Builder\", \"aboveThreshold\": false, \"timeTicks\": 500, \"timeSeconds\": 300, \"late\": true, \"lateTicks\": 600, \"lateSeconds\": 360, \"joins\": 2, \"leaves\": 2, \"intervals\": [[600, 900], [1000, 1200]]},\n"
+                + "    {\"name\": \"Carl\\\\\", \"aboveThreshold\": false, \"timeTicks\": 0, \"timeSeconds\": 0, \"late\": false, \"lateTicks\": 0, \"lateSeconds\": 0, \"joins\": 0, \"leaves\": 0, \"intervals\": []}\n"
+                + "  ]\n"
+                + "}\n", write(export(), OutputFormat.JSON));
+    }
+
+    @Test
+    public void emptyExports() throws IOException {
+        final AttendanceExport export = new AttendanceExport(START, 0, 600, 300, Collections.emptyList());
+
+        assertEquals("name,above_threshold,time_ticks,time_seconds,late,late_ticks,late_seconds,joins,leaves\n",
+                write(export, OutputFormat.CSV));
+        assertEquals("{\n"
+                + "  \"startedAt\": \"2023-11-14T22:13:20Z\",\n"
+                + "  \"durationTicks\": 0,\n"
+                + "  \"durationSeconds\": 0,\n"
+                + "  \"presentThresholdSeconds\": 600,\n"
+                + "  \"lateThresholdSeconds\": 300,\n"
+                + "  \"members\": []\n"
+                + "}\n", write(export, OutputFormat.JSON));
+    }
+}
@@ -0,0 +1,202 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import org.junit.After;
+import org.junit.Test;
+
+/**
+ * Pins the HTML list to what the String.format rows and (int) (ticks * 0.6f)
+ * durations produced before the formatter, for long events and for names
+ * shorter and longer than the name column.
+ */
+public class AttendanceFormatterTest {
+    private static final String PRESENT = "#00ff00";
+    private static final String ABSENT = "#ff0000";
+    private static final String WHITE = "#FFFFFF";
+
+    private final PluginHarness harness = new PluginHarness(Collections.emptyMap());
+
+    @After
+    public void tearDown() {
+        harness.close();
+    }
+
+    @Test
+    public void ticksToSecondsMatchesTheFloatConversion() {
+        final int cutoff = ClanEventAttendancePlugin.EXACT_SECONDS_TICKS;
+        for (int ticks = cutoff - 100_000; ticks < cutoff + 100_000; ++ticks) {
+            assertEquals(ticks, baselineSeconds(ticks), ClanEventAttendancePlugin.ticksToSeconds(ticks));
+        }
+        for (int ticks = 0; ticks < 10_000; ++ticks) {
+            assertEquals(baselineSeconds(ticks), ClanEventAttendancePlugin.ticksToSeconds(ticks));
+        }
+        assertEquals(baselineSeconds(Integer.MAX_VALUE), ClanEventAttendancePlugin.ticksToSeconds(Integer.MAX_VALUE));
+    }
+
+    @Test
+    public void rowsMatchStringFormat() {
+        final String[] names = { "", "Al", "Twelve Chars", "Bob the Builder" };
+        final int[] seconds = { 0, 59, 600, 5999, 6000, 59999, 60000,
+                ClanEventAttendancePlugin.ticksToSeconds(ClanEventAttendancePlugin.EXACT_SECONDS_TICKS + 7),
+                ClanEventAttendancePlugin.ticksToSeconds(Integer.MAX_VALUE) };
+
+        for (String name : names) {
+            for (int total : seconds) {
+                for (int late : seconds) {
+                    for (boolean lateColumn : new boolean[] { false, true }) {
+                        final StringBuilder sb = new StringBuilder();
+                        AttendanceFormatter.appendRow(sb, PRESENT, name, total, lateColumn, late > 300, late);
+                        assertEquals(baselineRow(PRESENT, name, total, lateColumn, late > 300, late), sb.toString());
+                    }
+                }
+            }
+        }
+    }
+
+    @Test
+    public void longEventMatchesTheBaselineList() {
+        final PluginHarness.Member al = harness.member("Al");
+        final PluginHarness.Member bob = harness.member("Bob the Builder");
+        final PluginHarness.Member twelve = harness.member("Twelve Chars");
+        final PluginHarness.Member zed = harness.member("Zed");
+
+        final int startTick = harness.tickCount();
+        harness.startEvent();
+        for (PluginHarness.Member member : new PluginHarness.Member[] { al, bob, zed }) {
+            harness.clanJoin(member);
+            harness.spawn(member);
+        }
+        harness.tick();
+        harness.tick();
+
+        for (int i = 0; i < 600; ++i) {
+            harness.tick();
+        }
+        harness.clanLeave(bob);
+        harness.despawn(bob);
+        harness.tick();
+
+        for (int i = 0; i < 400; ++i) {
+            harness.tick();
+        }
+        harness.clanJoin(twelve);
+        harness.spawn(twelve);
+        harness.tick();
+
+        // Past the ticksToSeconds fast path, on a duration the two conversions round differently
+        harness.advance(startTick + ClanEventAttendancePlugin.EXACT_SECONDS_TICKS + 100 - harness.tickCount() - 1);
+        harness.gameTick();
+        harness.despawn(zed);
+        harness.clanLeave(zed);
+        harness.tick();
+
+        assertEquals(baselineList(false, Arrays.asList("Al", "Twelve Chars")), harness.plugin.generateTextData(false));
+
+        harness.stopEvent();
+        assertEquals(baselineList(true, null), harness.plugin.generateTextData(true));
+    }
+
+    // The list generateTextData built with String.format, from the attendance the plugin recorded
+    private String baselineList(boolean finalDisplay, List<String> present) {
+        final AttendanceSnapshot snapshot = harness.plugin.buildSnapshot();
+        final StringBuilder active = new StringBuilder();
+        final StringBuilder inactive = new StringBuilder();
+
+        for (AttendanceSnapshot.Member member : snapshot.getMembers()) {
+            final int[] intervals = member.getIntervals();
+            int ticksTotal = 0;
+            for (int i = 0; i < intervals.length; i += 2) {
+                ticksTotal += intervals[i + 1] - intervals[i];
+            }
+
+            final int totalSeconds = baselineSeconds(ticksTotal);
+            final int lateSeconds = baselineSeconds(intervals[0]);
+            final String color = present == null ? WHITE : present.contains(member.getName()) ? PRESENT : ABSENT;
+            final String row = baselineRow(color, member.getName(), totalSeconds, true, lateSeconds > 300, lateSeconds);
+
+            if (totalSeconds < 600)
+                inactive.append(row);
+            else
+                active.append(row);
+        }
+
+        final String header = String.format("%-12s | %-6s | %-6s<br/>", "Name", "Time", "Late");
+        final StringBuilder sb = new StringBuilder("<html><body><pre>");
+        if (finalDisplay)
+            sb.append("Event name: <br/>Hosted by: <br/><br/>");
+        sb.append("Event Duration: ").append(baselineTime(baselineSeconds(snapshot.getDurationTicks()))).append("<br/><br/>");
+        if (finalDisplay)
+            sb.append("```<br/>");
+        sb.append("Present Members<br/>------------------------------<br/>").append(header).append(active);
+        sb.append("<br/>Below Threshold (").append(baselineTime(600)).append(")<br/>");
+        sb.append("------------------------------<br/>").append(header).append(inactive);
+        if (finalDisplay)
+            sb.append("```<br/><br/>Thanks for coming!");
+        sb.append("</pre></body></html>");
+        return sb.toString();
+    }
+
+    private static String baselineRow(String color, String name, int totalSeconds, boolean lateColumn, boolean late, int lateSeconds) {
+        if (lateColumn) {
+            return String.format("%s%-12s | %-6s | %-6s%s<br/>",
+                    "<font color='" + color + "'>",
+                    name,
+                    baselineTime(totalSeconds),
+                    late ? baselineTime(lateSeconds) : "-",
+                    "</font>");
+        }
+
+        return String.format("%s%-12s | %-6s%s<br/>",
+                "<font color='" + color + "'>",
+                name,
+                baselineTime(totalSeconds),
+                "</font>");
+    }
+
+    private static String baselineTime(int totalSeconds) {
+        long minute = TimeUnit.SECONDS.toMinutes(totalSeconds);
+        long second = TimeUnit.SECONDS.toSeconds(totalSeconds) - (TimeUnit.SECONDS.toMinutes(totalSeconds) * 60);
+
+        if (minute > 99) {
+            return String.format("%03d:%02d", minute, second);
+        }
+
+        return String.format("%02d:%02d", minute, second);
+    }
+
+    private static int baselineSeconds(int ticks) {
+        return (int) (ticks * 0.6f);
+    }
+}
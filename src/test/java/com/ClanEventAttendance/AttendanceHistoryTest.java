@@ -0,0 +1,118 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class AttendanceHistoryTest {
+    private static final long DAY = 24L * 60 * 60 * 1000;
+    private static final long START = 1_700_000_000_000L;
+
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void reloadsEventsFromDisk() throws IOException {
+        final File file = new File(folder.newFolder(), "events/history.tsv");
+
+        final AttendanceHistory written = new AttendanceHistory(file);
+        written.ingest(START, 1000, Arrays.asList(
+                new AttendanceHistory.Record("alice", "Alice", 900, 0),
+                new AttendanceHistory.Record("bob", "Bob", 200, 50)));
+        // Stopped last, started first
+        written.ingest(START - DAY, 500, Collections.singletonList(
+                new AttendanceHistory.Record("alice", "Alice", 500, 10)));
+        written.ingest(START + DAY, 800, Arrays.asList(
+                new AttendanceHistory.Record("alice", "Alice", 100, 0),
+                new AttendanceHistory.Record("bob", "Bob", 800, 0)));
+        // A resumed event is only recorded once
+        written.ingest(START, 1000, Collections.singletonList(
+                new AttendanceHistory.Record("carl", "Carl", 1000, 0)));
+
+        final AttendanceHistory history = new AttendanceHistory(file);
+
+        assertEquals(3, history.eventCount(Long.MIN_VALUE, Long.MAX_VALUE));
+        assertEquals(2, history.eventCount(START, START + DAY));
+        assertEquals(1, history.eventCount(START, START));
+        assertEquals(0, history.eventCount(START + 1, START + DAY - 1));
+
+        assertEquals(Arrays.asList(
+                new AttendanceHistory.Attendance(START - DAY, "Alice", 500, 10),
+                new AttendanceHistory.Attendance(START, "Alice", 900, 0),
+                new AttendanceHistory.Attendance(START + DAY, "Alice", 100, 0)),
+                history.memberHistory("alice", Long.MIN_VALUE, Long.MAX_VALUE, 0));
+        assertEquals(Collections.singletonList(
+                new AttendanceHistory.Attendance(START, "Alice", 900, 0)),
+                history.memberHistory("alice", START, START + DAY, 200));
+        assertEquals(Collections.singletonList(
+                new AttendanceHistory.Attendance(START + DAY, "Bob", 800, 0)),
+                history.memberHistory("bob", START + 1, Long.MAX_VALUE, 0));
+        assertTrue(history.memberHistory("carl", Long.MIN_VALUE, Long.MAX_VALUE, 0).isEmpty());
+
+        assertEquals(Arrays.asList(
+                new AttendanceHistory.MemberSummary("Alice", 3, 1500),
+                new AttendanceHistory.MemberSummary("Bob", 2, 1000)),
+                history.summary(Long.MIN_VALUE, Long.MAX_VALUE, 0));
+        assertEquals(Arrays.asList(
+                new AttendanceHistory.MemberSummary("Alice", 2, 1400),
+                new AttendanceHistory.MemberSummary("Bob", 1, 800)),
+                history.summary(Long.MIN_VALUE, START + DAY, 300));
+        assertTrue(history.summary(START + 2 * DAY, Long.MAX_VALUE, 0).isEmpty());
+    }
+
+    @Test
+    public void escapesSeparatorsInNames() throws IOException {
+        final File file = new File(folder.getRoot(), "history.tsv");
+        final String name = "Tab\tName\nLine\\End\r";
+
+        new AttendanceHistory(file).ingest(START, 100, Collections.singletonList(
+                new AttendanceHistory.Record("key\t1", name, 100, 0)));
+
+        final List<String> lines = Files.readAllLines(file.toPath(), StandardCharsets.UTF_8);
+        assertEquals(Arrays.asList(
+                "E\t" + START + "\t100",
+                "M\t" + START + "\t100\t0\tkey\\t1\tTab\\tName\\nLine\\\\End\\r"),
+                lines);
+
+        final AttendanceHistory history = new AttendanceHistory(file);
+        assertEquals(Collections.singletonList(new AttendanceHistory.Attendance(START, name, 100, 0)),
+                history.memberHistory("key\t1", START, START, 0));
+    }
+}
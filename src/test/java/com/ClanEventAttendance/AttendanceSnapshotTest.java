@@ -0,0 +1,93 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import java.io.IOException;
+import java.io.StringReader;
+import java.io.StringWriter;
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class AttendanceSnapshotTest {
+    private static final long START = 1_700_000_000_000L;
+
+    @Test
+    public void mergeAlignsOnWallClockAndCountsOverlapsOnce() {
+        // Second client started 10 ticks later, its intervals shift by 10
+        final AttendanceSnapshot first = new AttendanceSnapshot(START, 100, 301, Arrays.asList(
+                new AttendanceSnapshot.Member("alice", "Alice", new int[] { 0, 40 }),
+                new AttendanceSnapshot.Member("bob", "Bob", new int[] { 50, 60 })));
+        final AttendanceSnapshot second = new AttendanceSnapshot(START + 10 * 600 + 250, 100, 302, Arrays.asList(
+                new AttendanceSnapshot.Member("alice", "Alice", new int[] { 20, 50, 80, 90 }),
+                new AttendanceSnapshot.Member("carol", "Carol", new int[] { 0, 5 })));
+
+        final AttendanceSnapshot merged = AttendanceSnapshot.merge(Arrays.asList(second, first));
+
+        assertEquals(START, merged.getStartedAtMillis());
+        assertEquals(110, merged.getDurationTicks());
+        assertEquals(3, merged.getMembers().size());
+        assertEquals("alice", merged.getMembers().get(0).getKey());
+        assertArrayEquals(new int[] { 0, 60, 90, 100 }, merged.getMembers().get(0).getIntervals());
+        assertArrayEquals(new int[] { 50, 60 }, merged.getMembers().get(1).getIntervals());
+        assertArrayEquals(new int[] { 10, 15 }, merged.getMembers().get(2).getIntervals());
+
+        final AttendanceExport export = merged.toExport(30, 6);
+        final AttendanceExport.Row alice = export.getRows().get(0);
+        assertEquals(70, alice.getTicksTotal());
+        assertEquals(2, alice.getJoins());
+        assertTrue(alice.isAboveThreshold());
+        assertFalse(alice.isLate());
+        assertTrue(export.getRows().get(1).isLate());
+
+        // Merging a merge with itself changes nothing
+        assertEquals(merged, AttendanceSnapshot.merge(Arrays.asList(merged, merged)));
+    }
+
+    @Test
+    public void writesAndReadsBack() throws IOException {
+        final AttendanceSnapshot snapshot = new AttendanceSnapshot(START, 42, 420, Arrays.asList(
+                new AttendanceSnapshot.Member("a b", "A B", new int[] { 1, 2, 5, 42 }),
+                new AttendanceSnapshot.Member("c", "C", new int[0])));
+
+        final StringWriter out = new StringWriter();
+        snapshot.write(out);
+        final AttendanceSnapshot read = AttendanceSnapshot.read(new StringReader(out.toString()));
+
+        assertEquals(snapshot.getStartedAtMillis(), read.getStartedAtMillis());
+        assertEquals(snapshot.getDurationTicks(), read.getDurationTicks());
+        assertEquals(snapshot.getWorld(), read.getWorld());
+        assertEquals(snapshot.getMembers(), read.getMembers());
+        assertEquals(Collections.emptyList(), AttendanceSnapshot.read(new StringReader("S\t0\t0\t0\n")).getMembers());
+    }
+}
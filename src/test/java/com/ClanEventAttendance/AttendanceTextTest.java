@@ -0,0 +1,139 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import static org.junit.Assert.assertEquals;
+
+import java.util.Arrays;
+import java.util.Collections;
+import org.junit.Test;
+
+public class AttendanceTextTest {
+    private static final String SEPARATOR = "------------------------------\n";
+    private static final String FENCE = "```";
+
+    @Test
+    public void finalListWithLateMembersAndCodeBlock() {
+        final AttendanceText text = new AttendanceText("Raid night", "Thanks all!", true, 3723, 600, true,
+                new String[] { "Alice", "Bob the Builder", "Carl" },
+                new int[] { 1230, 3725, 59 },
+                new boolean[] { false, true, true },
+                new int[] { 10, 400, 605 });
+
+        assertEquals("Raid night\n"
+                + "\n"
+                + "Event Duration: 62:03\n"
+                + "\n"
+                + "```\n"
+                + "Present Members\n"
+                + SEPARATOR
+                + "Name         | Time   | Late  \n"
+                + "Alice        | 20:30  | -     \n"
+                + "Bob the Builder | 62:05  | 06:40 \n"
+                + "\n"
+                + "Below Threshold (10:00)\n"
+                + SEPARATOR
+                + "Name         | Time   | Late  \n"
+                + "Carl         | 00:59  | 10:05 \n"
+                + "```\n"
+                + "\n"
+                + "Thanks all!", text.text());
+    }
+
+    @Test
+    public void runningListWithoutLateMembers() {
+        final AttendanceText text = new AttendanceText(null, null, false, 605, 600, false,
+                new String[] { "Alice", "Dee" },
+                new int[] { 1230, 600 },
+                new boolean[] { true, false },
+                new int[] { 400, 0 });
+
+        assertEquals("Event Duration: 10:05\n"
+                + "\n"
+                + "Present Members\n"
+                + SEPARATOR
+                + "Name         | Time  \n"
+                + "Alice        | 20:30 \n"
+                + "Dee          | 10:00 \n", text.text());
+    }
+
+    @Test
+    public void onlyBelowThreshold() {
+        final AttendanceText text = new AttendanceText(null, null, false, 59, 600, false,
+                new String[] { "Carl" },
+                new int[] { 59 },
+                new boolean[] { false },
+                new int[] { 0 });
+
+        assertEquals("Event Duration: 00:59\n"
+                + "\n"
+                + "Below Threshold (10:00)\n"
+                + SEPARATOR
+                + "Name         | Time  \n"
+                + "Carl         | 00:59 \n", text.text());
+    }
+
+    @Test
+    public void splitKeepsShortTextWhole() {
+        assertEquals(Collections.singletonList("abc"), AttendanceText.split("abc", 3));
+        assertEquals(Collections.singletonList("abc\ndef"), AttendanceText.split("abc\ndef", 0));
+    }
+
+    @Test
+    public void splitClosesAndReopensCodeBlocks() {
+        final String text = "Header\n\n" + FENCE + "\nline one\nline two\nline three\n" + FENCE + "\n\nFooter";
+
+        assertEquals(Arrays.asList(
+                "Header\n\n" + FENCE + "\nline one\n" + FENCE,
+                FENCE + "\nline two\n" + FENCE,
+                FENCE + "\nline three\n" + FENCE,
+                "Footer"), AttendanceText.split(text, 25));
+    }
+
+    @Test
+    public void splitGivesOverlongLinesTheirOwnPart() {
+        final String line = String.join("", Collections.nCopies(40, "x"));
+
+        assertEquals(Arrays.asList("short", line, "end"), AttendanceText.split("short\n" + line + "\nend", 10));
+    }
+
+    @Test
+    public void splitDoesNotLeaveEmptyCodeBlocks() {
+        final String line = String.join("", Collections.nCopies(30, "y"));
+
+        assertEquals(Arrays.asList(FENCE + "\n" + line + "\n" + FENCE, FENCE + "\nz\n" + FENCE),
+                AttendanceText.split(FENCE + "\n" + line + "\nz\n" + FENCE, 12));
+        assertEquals(Arrays.asList("Header", FENCE + "\n" + line + "\n" + FENCE),
+                AttendanceText.split("Header\n" + FENCE + "\n" + line + "\n" + FENCE, 12));
+    }
+
+    @Test
+    public void splitTrimsBlankLinesAtPartEdges() {
+        assertEquals(Arrays.asList("aaaa", "bbbb"), AttendanceText.split("aaaa\n\n\nbbbb", 6));
+    }
+}
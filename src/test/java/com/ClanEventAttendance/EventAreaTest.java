@@ -0,0 +1,114 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import net.runelite.api.coords.WorldPoint;
+import org.junit.Test;
+
+public class EventAreaTest {
+    @Test
+    public void wholeRegionsIncludeTheirEdges() {
+        // Region 12850 spans x 3200-3263, y 3200-3263
+        final EventArea area = EventArea.parse("12850");
+
+        assertTrue(area.contains(new WorldPoint(3200, 3200, 0)));
+        assertTrue(area.contains(new WorldPoint(3263, 3263, 2)));
+        assertTrue(area.contains(new WorldPoint(3200, 3263, 1)));
+        assertFalse(area.contains(new WorldPoint(3199, 3200, 0)));
+        assertFalse(area.contains(new WorldPoint(3200, 3199, 0)));
+        assertFalse(area.contains(new WorldPoint(3264, 3263, 0)));
+        assertFalse(area.contains(new WorldPoint(3263, 3264, 0)));
+    }
+
+    @Test
+    public void rectanglesIncludeTheirEdgesAndPlane() {
+        final EventArea area = EventArea.parse("3010, 3005, 3000, 3000, 1\n2500, 2500, 2505, 2505");
+
+        // Corners given in any order
+        assertTrue(area.contains(new WorldPoint(3000, 3000, 1)));
+        assertTrue(area.contains(new WorldPoint(3010, 3005, 1)));
+        assertFalse(area.contains(new WorldPoint(3011, 3005, 1)));
+        assertFalse(area.contains(new WorldPoint(3010, 3006, 1)));
+        assertFalse(area.contains(new WorldPoint(2999, 3000, 1)));
+        assertFalse(area.contains(new WorldPoint(3005, 3002, 0)));
+
+        // No plane counts every plane
+        assertTrue(area.contains(new WorldPoint(2505, 2500, 0)));
+        assertTrue(area.contains(new WorldPoint(2500, 2505, 3)));
+    }
+
+    @Test
+    public void rectanglesAcrossRegionBorders() {
+        // Touches four regions, x 3136 and y 3136 are region borders
+        final EventArea area = EventArea.parse("3130, 3130, 3140, 3140");
+
+        assertTrue(area.contains(new WorldPoint(3130, 3130, 0)));
+        assertTrue(area.contains(new WorldPoint(3135, 3135, 0)));
+        assertTrue(area.contains(new WorldPoint(3136, 3136, 0)));
+        assertTrue(area.contains(new WorldPoint(3140, 3130, 0)));
+        assertTrue(area.contains(new WorldPoint(3130, 3140, 0)));
+        assertFalse(area.contains(new WorldPoint(3141, 3136, 0)));
+        assertFalse(area.contains(new WorldPoint(3136, 3129, 0)));
+        // Same regions, outside the rectangle
+        assertFalse(area.contains(new WorldPoint(3190, 3190, 0)));
+    }
+
+    @Test
+    public void membersOutsideEveryRegion() {
+        final EventArea area = EventArea.parse("12850; 12342\n3000, 3000, 3010, 3010");
+
+        assertFalse(area.contains(new WorldPoint(1000, 1000, 0)));
+        assertFalse(area.contains(new WorldPoint(0, 0, 0)));
+        assertFalse(area.contains(new WorldPoint(16383, 16383, 0)));
+        assertFalse(area.contains(null));
+        // Between the indexed regions
+        assertFalse(area.contains(new WorldPoint(3100, 3300, 0)));
+        // Region 12342 spans x 3072-3135, y 3456-3519
+        assertTrue(area.contains(new WorldPoint(3072, 3456, 0)));
+    }
+
+    @Test
+    public void skipsEntriesThatCantBeRead() {
+        assertNull(EventArea.parse(null));
+        assertNull(EventArea.parse(" \n "));
+        assertNull(EventArea.parse("lumbridge"));
+        assertNull(EventArea.parse("1, 2, 3"));
+        assertNull(EventArea.parse("70000"));
+        assertNull(EventArea.parse("-1"));
+        assertNull(EventArea.parse("1, 2, 3, four"));
+
+        final EventArea area = EventArea.parse("lumbridge\n1, 2, 3\n12850");
+        assertNotNull(area);
+        assertTrue(area.contains(new WorldPoint(3222, 3218, 0)));
+    }
+}
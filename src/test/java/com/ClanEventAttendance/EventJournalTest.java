@@ -0,0 +1,136 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import com.google.inject.Guice;
+import java.io.File;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import org.junit.Rule;
+import org.junit.Test;
+import org.junit.rules.TemporaryFolder;
+
+public class EventJournalTest {
+    @Rule
+    public TemporaryFolder folder = new TemporaryFolder();
+
+    @Test
+    public void resumedEventReplaysAfterASecondCrash() throws Exception {
+        final File file = folder.newFile("event-1" + EventJournal.FILE_SUFFIX);
+        // The first crash, both members present since their last P
+        Files.write(file.toPath(), ("S\t1\t0\t-\n"
+                + "A\t100\talice\tAlice\n"
+                + "P\t100\talice\n"
+                + "A\t200\tbob\tBob\n"
+                + "P\t200\tbob\n"
+                + "T\t500\n").getBytes(StandardCharsets.UTF_8));
+
+        final EventJournal.Recovery first = EventJournal.replay(file);
+        assertEquals(400, member(first, "alice").getTicksTotal());
+        assertEquals(1, member(first, "alice").getLeaves());
+
+        // Alice comes back after the resume, Bob doesn't, then the client crashes again
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        final EventJournal journal = journal(executor);
+        journal.resume(first);
+        journal.checkpoint(600);
+        journal.present(601, "alice");
+        journal.absent(800, "alice");
+        journal.checkpoint(900);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        final EventJournal.Recovery second = EventJournal.replay(file);
+        assertFalse(second.isFinished());
+        assertEquals(900, second.getLastTick());
+        assertEquals(599, member(second, "alice").getTicksTotal());
+        assertEquals(2, member(second, "alice").getJoins());
+        assertEquals(2, member(second, "alice").getLeaves());
+        assertEquals(300, member(second, "bob").getTicksTotal());
+        assertEquals(1, member(second, "bob").getLeaves());
+    }
+
+    @Test
+    public void stoppedEventDeletesItsJournal() throws Exception {
+        final File file = new File(folder.getRoot(), "event-2" + EventJournal.FILE_SUFFIX);
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        final EventJournal journal = journal(executor);
+
+        journal.start(file, 0, null);
+        journal.added(0, "alice", "Alice");
+        journal.present(0, "alice");
+        journal.checkpoint(100);
+        executor.submit(() -> { }).get();
+        assertTrue(file.exists());
+
+        journal.absent(150, "alice");
+        journal.finish(200);
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertFalse(file.exists());
+        assertFalse(journal.isOpen());
+    }
+
+    @Test
+    public void declinedResumeDeletesTheJournal() throws Exception {
+        final File file = folder.newFile("event-3" + EventJournal.FILE_SUFFIX);
+        Files.write(file.toPath(), ("S\t1\t0\t-\n"
+                + "A\t100\talice\tAlice\n"
+                + "P\t100\talice\n"
+                + "T\t500\n").getBytes(StandardCharsets.UTF_8));
+
+        final ScheduledExecutorService executor = Executors.newSingleThreadScheduledExecutor();
+        journal(executor).abandon(EventJournal.replay(file));
+        executor.shutdown();
+        executor.awaitTermination(10, TimeUnit.SECONDS);
+
+        assertFalse(file.exists());
+    }
+
+    private static EventJournal journal(ScheduledExecutorService executor) {
+        return Guice.createInjector(binder -> binder.bind(ScheduledExecutorService.class).toInstance(executor))
+                .getInstance(EventJournal.class);
+    }
+
+    private static EventJournal.RecoveredMember member(EventJournal.Recovery recovery, String key) throws IOException {
+        for (EventJournal.RecoveredMember member : recovery.getMembers()) {
+            if (member.getKey().equals(key))
+                return member;
+        }
+        throw new IOException("Not replayed: " + key);
+    }
+}
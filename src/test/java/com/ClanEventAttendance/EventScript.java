@@ -0,0 +1,164 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.Random;
+import lombok.Value;
+
+/**
+ * A recorded or generated sequence of spawn and chat events, for the
+ * simulator. The event starts at tick 0, events at tick 0 happen before it
+ * starts, and it stops at the script duration.
+ *
+ * Scripts are stored one event per line, ex:
+ * <pre>
+ * # tick kind name
+ * 0 CLAN_JOIN JoRouss
+ * 0 SPAWN JoRouss
+ * 250 DESPAWN JoRouss
+ * END 6000
+ * </pre>
+ */
+@Value
+class EventScript {
+    enum Kind {
+        SPAWN,
+        DESPAWN,
+        CLAN_JOIN,
+        CLAN_LEAVE,
+        FRIENDS_CHAT_JOIN,
+        FRIENDS_CHAT_LEAVE
+    }
+
+    @Value
+    static class Step {
+        int tick;
+        Kind kind;
+        String name;
+    }
+
+    int durationTicks;
+    List<Step> steps;
+
+    static EventScript parse(Reader reader) throws IOException {
+        final BufferedReader in = new BufferedReader(reader);
+        final List<Step> steps = new ArrayList<>();
+        int durationTicks = 0;
+
+        String line;
+        while ((line = in.readLine()) != null) {
+            line = line.trim();
+            if (line.isEmpty() || line.startsWith("#"))
+                continue;
+
+            final String[] fields = line.split(" ", 3);
+            if (fields[0].equals("END")) {
+                durationTicks = Integer.parseInt(fields[1]);
+                continue;
+            }
+
+            if (fields.length != 3)
+                throw new IOException("Malformed script line: " + line);
+
+            steps.add(new Step(Integer.parseInt(fields[0]), Kind.valueOf(fields[1]), fields[2]));
+        }
+
+        // Stable, events within a tick keep their order
+        steps.sort(Comparator.comparingInt(Step::getTick));
+
+        if (durationTicks == 0 && !steps.isEmpty())
+            durationTicks = steps.get(steps.size() - 1).getTick() + 1;
+
+        return new EventScript(durationTicks, Collections.unmodifiableList(steps));
+    }
+
+    void write(Writer out) throws IOException {
+        out.write("# tick kind name\n");
+        for (Step step : steps) {
+            out.write(step.tick + " " + step.kind + " " + step.name + "\n");
+        }
+        out.write("END " + durationTicks + "\n");
+    }
+
+    /**
+     * A random event, most members are in the clan chat and around when it
+     * starts, others show up late, some are friends chat guests. Everyone
+     * comes and goes a few times, and some briefly leave the clan chat.
+     */
+    static EventScript generate(int members, int durationTicks, long seed) {
+        final Random random = new Random(seed);
+        final List<Step> steps = new ArrayList<>();
+
+        for (int i = 0; i < members; ++i) {
+            final String name = "Member " + i;
+            final boolean onTime = random.nextInt(10) < 7;
+
+            // Mostly clan chat, some friends chat guests
+            final int chats = random.nextInt(10);
+            final boolean inClanChat = chats < 8;
+
+            int tick = onTime ? 0 : 1 + random.nextInt(Math.max(1, durationTicks / 4));
+            if (inClanChat)
+                steps.add(new Step(tick, Kind.CLAN_JOIN, name));
+            if (chats >= 6)
+                steps.add(new Step(tick, Kind.FRIENDS_CHAT_JOIN, name));
+
+            final int sessions = 1 + random.nextInt(3);
+            for (int s = 0; s < sessions && tick < durationTicks; ++s) {
+                steps.add(new Step(tick, Kind.SPAWN, name));
+
+                final int stay = 1 + random.nextInt(Math.max(1, durationTicks / sessions));
+                final int leaveAt = tick + stay;
+
+                // Some step out of the clan chat for a moment while at the event
+                if (inClanChat && random.nextInt(10) == 0 && stay > 20) {
+                    final int chatLeaveAt = tick + 1 + random.nextInt(stay / 2);
+                    steps.add(new Step(chatLeaveAt, Kind.CLAN_LEAVE, name));
+                    steps.add(new Step(chatLeaveAt + 1 + random.nextInt(10), Kind.CLAN_JOIN, name));
+                }
+
+                if (leaveAt >= durationTicks)
+                    break;
+
+                steps.add(new Step(leaveAt, Kind.DESPAWN, name));
+                tick = leaveAt + 1 + random.nextInt(Math.max(1, durationTicks / 10));
+            }
+        }
+
+        steps.sort(Comparator.comparingInt(Step::getTick));
+        return new EventScript(durationTicks, Collections.unmodifiableList(steps));
+    }
+}
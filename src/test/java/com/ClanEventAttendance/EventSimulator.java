@@ -0,0 +1,379 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import com.ClanEventAttendance.config.ClanChannelType;
+import java.io.FileReader;
+import java.io.IOException;
+import java.io.Reader;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.EnumMap;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import lombok.Value;
+
+/**
+ * Replays an {@link EventScript} through the plugin, one tick at a time, and
+ * checks the attendance and presence intervals it records against a plain
+ * reference model. Handler
+ * latencies are recorded along the way.
+ *
+ * Run with either a script file or a generated event:
+ * <pre>
+ * EventSimulator &lt;script file&gt; [filter type]
+ * EventSimulator &lt;members&gt; &lt;hours&gt; &lt;seed&gt; [filter type]
+ * </pre>
+ */
+class EventSimulator {
+    // The plugin scans the players around when the event starts, this many ticks in
+    static final int INITIAL_SCAN_TICKS = 2;
+
+    @Value
+    static class Attendance {
+        int ticksTotal;
+        int ticksLate;
+    }
+
+    @Value
+    static class Result {
+        Map<String, Attendance> expected;
+        Map<String, Attendance> recorded;
+        List<String> mismatches;
+        Map<String, Latency> latencies;
+        long elapsedNanos;
+    }
+
+    @Value
+    static class Latency {
+        int count;
+        long meanNanos;
+        long p50Nanos;
+        long p99Nanos;
+        long maxNanos;
+    }
+
+    private static class LatencyRecorder {
+        private long[] samples = new long[1024];
+        private int count;
+
+        void record(long nanos) {
+            if (count == samples.length)
+                samples = Arrays.copyOf(samples, count * 2);
+            samples[count++] = nanos;
+        }
+
+        Latency summarize() {
+            if (count == 0)
+                return new Latency(0, 0, 0, 0, 0);
+
+            final long[] sorted = Arrays.copyOf(samples, count);
+            Arrays.sort(sorted);
+
+            long sum = 0;
+            for (long sample : sorted) {
+                sum += sample;
+            }
+
+            return new Latency(count, sum / count, sorted[(count - 1) / 2], sorted[(int) ((count - 1) * 0.99)], sorted[count - 1]);
+        }
+    }
+
+    // What the plugin should record, derived from the script alone
+    private static class ReferenceModel {
+        private static class State {
+            boolean spawned;
+            boolean inClanChat;
+            boolean inFriendsChat;
+            boolean present;
+            int presentSince;
+            int ticksTotal;
+            int ticksLate = -1;
+            final List<Integer> intervals = new ArrayList<>();
+        }
+
+        private final ClanChannelType filterType;
+        private final Map<String, State> states = new HashMap<>();
+        // Changed during the current tick, the plugin applies presence once per tick
+        private final List<State> touched = new ArrayList<>();
+
+        ReferenceModel(ClanChannelType filterType) {
+            this.filterType = filterType;
+        }
+
+        void apply(EventScript.Step step, boolean eventRunning) {
+            final State state = states.computeIfAbsent(step.getName(), n -> new State());
+
+            switch (step.getKind()) {
+                case SPAWN:
+                    state.spawned = true;
+                    break;
+                case DESPAWN:
+                    state.spawned = false;
+                    break;
+                case CLAN_JOIN:
+                    state.inClanChat = true;
+                    break;
+                case CLAN_LEAVE:
+                    state.inClanChat = false;
+                    break;
+                case FRIENDS_CHAT_JOIN:
+                    state.inFriendsChat = true;
+                    break;
+                case FRIENDS_CHAT_LEAVE:
+                    state.inFriendsChat = false;
+                    break;
+            }
+
+            if (eventRunning)
+                touched.add(state);
+        }
+
+        void settle(int tick) {
+            for (State state : touched) {
+                update(state, tick);
+            }
+            touched.clear();
+        }
+
+        void scan(int tick) {
+            for (State state : states.values()) {
+                update(state, tick);
+            }
+        }
+
+        void stop(int tick) {
+            for (State state : states.values()) {
+                if (state.present)
+                    close(state, tick);
+                state.present = false;
+            }
+        }
+
+        Map<String, Attendance> attendance() {
+            final Map<String, Attendance> attendance = new HashMap<>();
+            states.forEach((name, state) -> {
+                if (state.ticksLate >= 0)
+                    attendance.put(name, new Attendance(state.ticksTotal, state.ticksLate));
+            });
+            return attendance;
+        }
+
+        private void update(State state, int tick) {
+            final boolean present = state.spawned && inFilteredChat(state);
+            if (present == state.present)
+                return;
+
+            if (present) {
+                state.presentSince = tick;
+                if (state.ticksLate < 0)
+                    state.ticksLate = tick;
+            } else {
+                close(state, tick);
+            }
+
+            state.present = present;
+        }
+
+        private void close(State state, int tick) {
+            state.ticksTotal += tick - state.presentSince;
+            if (tick > state.presentSince) {
+                state.intervals.add(state.presentSince);
+                state.intervals.add(tick);
+            }
+        }
+
+        int[] intervals(String name) {
+            final State state = states.get(name);
+            return state == null ? new int[0] : state.intervals.stream().mapToInt(Integer::intValue).toArray();
+        }
+
+        private boolean inFilteredChat(State state) {
+            switch (filterType) {
+                case CLAN_CHAT:
+                    return state.inClanChat;
+                case FRIENDS_CHAT:
+                    return state.inFriendsChat;
+                default:
+                    return state.inClanChat || state.inFriendsChat;
+            }
+        }
+    }
+
+    static Result run(EventScript script, ClanChannelType filterType) {
+        final PluginHarness harness = new PluginHarness(Collections.singletonMap("filterType", filterType));
+        final ReferenceModel model = new ReferenceModel(filterType);
+        final Map<String, LatencyRecorder> recorders = new HashMap<>();
+        final Map<EventScript.Kind, LatencyRecorder> stepRecorders = new EnumMap<>(EventScript.Kind.class);
+        for (EventScript.Kind kind : EventScript.Kind.values()) {
+            stepRecorders.put(kind, recorders.computeIfAbsent(kind.name(), k -> new LatencyRecorder()));
+        }
+        final LatencyRecorder tickRecorder = recorders.computeIfAbsent("GAME_TICK", k -> new LatencyRecorder());
+
+        final List<EventScript.Step> steps = script.getSteps();
+        final long startedAt = System.nanoTime();
+        int next = 0;
+
+        try {
+            // Tick 0, before the event starts
+            for (; next < steps.size() && steps.get(next).getTick() == 0; ++next) {
+                deliver(harness, steps.get(next));
+                model.apply(steps.get(next), false);
+            }
+            harness.startEvent();
+
+            for (int tick = 1; tick < script.getDurationTicks(); ++tick) {
+                harness.advance();
+
+                for (; next < steps.size() && steps.get(next).getTick() == tick; ++next) {
+                    final EventScript.Step step = steps.get(next);
+                    final long before = System.nanoTime();
+                    deliver(harness, step);
+                    stepRecorders.get(step.getKind()).record(System.nanoTime() - before);
+                    model.apply(step, true);
+                }
+
+                final long before = System.nanoTime();
+                harness.gameTick();
+                tickRecorder.record(System.nanoTime() - before);
+                model.settle(tick);
+
+                if (tick == INITIAL_SCAN_TICKS)
+                    model.scan(tick);
+            }
+
+            harness.advance();
+            harness.stopEvent();
+            model.stop(harness.tickCount());
+        } finally {
+            harness.close();
+        }
+
+        final long elapsedNanos = System.nanoTime() - startedAt;
+
+        final Map<String, Attendance> recorded = new HashMap<>();
+        final List<String> mismatches = new ArrayList<>();
+        for (AttendanceExport.Row row : harness.plugin.buildExport().getRows()) {
+            recorded.put(row.getName(), new Attendance(row.getTicksTotal(), row.getTicksLate()));
+
+            final int[] intervals = model.intervals(row.getName());
+            if (!Arrays.equals(intervals, row.getIntervals()))
+                mismatches.add(row.getName() + ": expected intervals " + Arrays.toString(intervals) + ", recorded " + Arrays.toString(row.getIntervals()));
+        }
+
+        final Map<String, Attendance> expected = model.attendance();
+        expected.forEach((name, attendance) -> {
+            final Attendance actual = recorded.get(name);
+            if (!attendance.equals(actual))
+                mismatches.add(name + ": expected " + attendance + ", recorded " + actual);
+        });
+        recorded.keySet().stream()
+                .filter(name -> !expected.containsKey(name))
+                .forEach(name -> mismatches.add(name + ": recorded but never present"));
+        Collections.sort(mismatches);
+
+        final Map<String, Latency> latencies = new HashMap<>();
+        recorders.forEach((kind, recorder) -> latencies.put(kind, recorder.summarize()));
+
+        return new Result(expected, recorded, mismatches, latencies, elapsedNanos);
+    }
+
+    static void deliver(PluginHarness harness, EventScript.Step step) {
+        final PluginHarness.Member member = harness.member(step.getName());
+
+        switch (step.getKind()) {
+            case SPAWN:
+                harness.spawn(member);
+                break;
+            case DESPAWN:
+                harness.despawn(member);
+                break;
+            case CLAN_JOIN:
+                harness.clanJoin(member);
+                break;
+            case CLAN_LEAVE:
+                harness.clanLeave(member);
+                break;
+            case FRIENDS_CHAT_JOIN:
+                harness.friendsChatJoin(member);
+                break;
+            case FRIENDS_CHAT_LEAVE:
+                harness.friendsChatLeave(member);
+                break;
+        }
+    }
+
+    public static void main(String[] args) throws IOException {
+        final EventScript script;
+        final int filterArg;
+
+        if (args.length >= 3) {
+            final int members = Integer.parseInt(args[0]);
+            final double hours = Double.parseDouble(args[1]);
+            final long seed = Long.parseLong(args[2]);
+            // 100 ticks per minute
+            script = EventScript.generate(members, (int) (hours * 60 * 100), seed);
+            filterArg = 3;
+        } else if (args.length >= 1) {
+            try (Reader reader = new FileReader(args[0])) {
+                script = EventScript.parse(reader);
+            }
+            filterArg = 1;
+        } else {
+            System.err.println("Usage: EventSimulator <script file> [filter type]");
+            System.err.println("       EventSimulator <members> <hours> <seed> [filter type]");
+            System.exit(2);
+            return;
+        }
+
+        final ClanChannelType filterType = args.length > filterArg ? ClanChannelType.valueOf(args[filterArg]) : ClanChannelType.CLAN_CHAT;
+        final Result result = run(script, filterType);
+
+        System.out.printf("%d steps over %d ticks, %d members recorded, %.1f ms%n",
+                script.getSteps().size(), script.getDurationTicks(), result.getRecorded().size(), result.getElapsedNanos() / 1e6);
+        System.out.printf("%-20s %10s %10s %10s %10s %10s%n", "handler", "count", "mean us", "p50 us", "p99 us", "max us");
+        result.getLatencies().entrySet().stream()
+                .filter(e -> e.getValue().getCount() > 0)
+                .sorted(Map.Entry.comparingByKey())
+                .forEach(e -> {
+                    final Latency l = e.getValue();
+                    System.out.printf("%-20s %10d %10.2f %10.2f %10.2f %10.2f%n", e.getKey(), l.getCount(),
+                            l.getMeanNanos() / 1e3, l.getP50Nanos() / 1e3, l.getP99Nanos() / 1e3, l.getMaxNanos() / 1e3);
+                });
+
+        if (result.getMismatches().isEmpty()) {
+            System.out.println("Recorded attendance matches the reference model");
+        } else {
+            System.out.println(result.getMismatches().size() + " mismatches:");
+            result.getMismatches().forEach(m -> System.out.println("  " + m));
+            System.exit(1);
+        }
+    }
+}
@@ -0,0 +1,94 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertNull;
+import static org.junit.Assert.assertTrue;
+
+import com.ClanEventAttendance.config.ClanChannelType;
+import java.io.IOException;
+import java.io.StringReader;
+import org.junit.Test;
+
+public class EventSimulatorTest {
+    private static final String SCRIPT = String.join("\n",
+            "# on time, steps out of the clan chat for 100 ticks",
+            "0 CLAN_JOIN Alice",
+            "0 SPAWN Alice",
+            "500 CLAN_LEAVE Alice",
+            "600 CLAN_JOIN Alice",
+            "# late, comes and goes",
+            "100 CLAN_JOIN Bob",
+            "300 SPAWN Bob",
+            "400 DESPAWN Bob",
+            "700 SPAWN Bob",
+            "# never in the clan chat",
+            "0 FRIENDS_CHAT_JOIN Carol",
+            "50 SPAWN Carol",
+            "END 1000");
+
+    @Test
+    public void replaysRecordedScript() throws IOException {
+        final EventSimulator.Result result = EventSimulator.run(EventScript.parse(new StringReader(SCRIPT)), ClanChannelType.CLAN_CHAT);
+
+        assertTrue(result.getMismatches().toString(), result.getMismatches().isEmpty());
+        // Picked up by the initial scan
+        assertEquals(new EventSimulator.Attendance(1000 - 2 - 100, 2), result.getRecorded().get("Alice"));
+        assertEquals(new EventSimulator.Attendance(100 + 300, 300), result.getRecorded().get("Bob"));
+        assertNull(result.getRecorded().get("Carol"));
+    }
+
+    @Test
+    public void changesWithinOneTickCancelOut() throws IOException {
+        final String script = String.join("\n",
+                "0 CLAN_JOIN Dave",
+                "0 SPAWN Dave",
+                "# hops back within the tick, stays one interval",
+                "400 DESPAWN Dave",
+                "400 SPAWN Dave",
+                "# in and out within the tick, never present",
+                "0 CLAN_JOIN Erin",
+                "500 SPAWN Erin",
+                "500 DESPAWN Erin",
+                "END 1000");
+        final EventSimulator.Result result = EventSimulator.run(EventScript.parse(new StringReader(script)), ClanChannelType.CLAN_CHAT);
+
+        assertTrue(result.getMismatches().toString(), result.getMismatches().isEmpty());
+        assertEquals(new EventSimulator.Attendance(1000 - 2, 2), result.getRecorded().get("Dave"));
+        assertNull(result.getRecorded().get("Erin"));
+    }
+
+    @Test
+    public void generatedEventsMatchReferenceModel() {
+        for (ClanChannelType filterType : ClanChannelType.values()) {
+            final EventSimulator.Result result = EventSimulator.run(EventScript.generate(200, 6000, 1), filterType);
+            assertTrue(filterType + ": " + result.getMismatches(), result.getMismatches().isEmpty());
+        }
+    }
+}
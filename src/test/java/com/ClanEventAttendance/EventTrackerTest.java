@@ -0,0 +1,132 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+import com.ClanEventAttendance.config.ClanChannelType;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import org.junit.Test;
+
+public class EventTrackerTest {
+    @Test
+    public void parsesDefinitions() {
+        final List<EventTracker.Definition> definitions = EventTracker.parse(
+                "PvM trip, friends, 900, 120\r\n"
+                        + "  Skilling , cc\n"
+                        + "Minigame\n"
+                        + "Both chats, both, 60, 0",
+                600, 300);
+
+        assertEquals(Arrays.asList(
+                new EventTracker.Definition("PvM trip", ClanChannelType.FRIENDS_CHAT, 900, 120),
+                new EventTracker.Definition("Skilling", ClanChannelType.CLAN_CHAT, 600, 300),
+                new EventTracker.Definition("Minigame", ClanChannelType.BOTH_CHATS, 600, 300),
+                new EventTracker.Definition("Both chats", ClanChannelType.BOTH_CHATS, 60, 0)), definitions);
+    }
+
+    @Test
+    public void skipsMalformedAndRepeatedDefinitions() {
+        final List<EventTracker.Definition> definitions = EventTracker.parse(
+                "\n"
+                        + ", clan\n"
+                        + "Unknown chat, world\n"
+                        + "Not a number, clan, ten\n"
+                        + "Negative, clan, -1\n"
+                        + "Raid, clan, 600, 300\n"
+                        + "Raid, friends, 60, 30\n",
+                600, 300);
+
+        assertEquals(Collections.singletonList(new EventTracker.Definition("Raid", ClanChannelType.CLAN_CHAT, 600, 300)), definitions);
+        assertTrue(EventTracker.parse("", 600, 300).isEmpty());
+        assertTrue(EventTracker.parse(null, 600, 300).isEmpty());
+    }
+
+    @Test
+    public void namedEventAccountsLikeTheMainEvent() {
+        for (ClanChannelType filterType : ClanChannelType.values()) {
+            final Map<String, Object> config = new HashMap<>();
+            config.put("filterType", filterType);
+            // Same chat and thresholds as the main event, plus one on the other chats so the index is shared
+            config.put("namedEvents", "Same, " + filterName(filterType) + ", 600, 300\nOther, "
+                    + filterName(filterType == ClanChannelType.CLAN_CHAT ? ClanChannelType.FRIENDS_CHAT : ClanChannelType.CLAN_CHAT));
+
+            final PluginHarness harness = new PluginHarness(config);
+            try {
+                final EventScript script = EventScript.generate(150, 3000, 11);
+                final List<EventScript.Step> steps = script.getSteps();
+                int next = 0;
+
+                for (; next < steps.size() && steps.get(next).getTick() == 0; ++next) {
+                    EventSimulator.deliver(harness, steps.get(next));
+                }
+
+                harness.startEvent();
+                harness.plugin.startNamedEvent("Same");
+                harness.plugin.startNamedEvent("Other");
+
+                for (int tick = 1; tick < script.getDurationTicks(); ++tick) {
+                    harness.advance();
+                    for (; next < steps.size() && steps.get(next).getTick() == tick; ++next) {
+                        EventSimulator.deliver(harness, steps.get(next));
+                    }
+                    harness.gameTick();
+
+                    if (tick % 250 == 0) {
+                        assertEquals(filterType + " at " + tick, "Same\n\n" + harness.plugin.textSnapshot(false).text(),
+                                harness.plugin.namedEventText("Same").text());
+                    }
+                }
+
+                harness.advance();
+                harness.plugin.stopNamedEvent("Same");
+                harness.stopEvent();
+                assertEquals(filterType + " stopped", "Same\n\n" + harness.plugin.textSnapshot(false).text(),
+                        harness.plugin.namedEventText("Same").text());
+            } finally {
+                harness.close();
+            }
+        }
+    }
+
+    private static String filterName(ClanChannelType filterType) {
+        switch (filterType) {
+            case CLAN_CHAT:
+                return "clan";
+            case FRIENDS_CHAT:
+                return "friends";
+            default:
+                return "both";
+        }
+    }
+}
@@ -0,0 +1,385 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import com.ClanEventAttendance.config.ClanChannelType;
+import com.ClanEventAttendance.config.OutputFormat;
+import com.google.inject.Guice;
+import com.google.inject.Injector;
+import java.awt.Color;
+import java.lang.reflect.Method;
+import java.lang.reflect.Proxy;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.ScheduledThreadPoolExecutor;
+import net.runelite.api.Client;
+import net.runelite.api.FriendsChatMember;
+import net.runelite.api.Player;
+import net.runelite.api.clan.ClanChannel;
+import net.runelite.api.clan.ClanChannelMember;
+import net.runelite.api.coords.WorldPoint;
+import net.runelite.api.events.ClanMemberJoined;
+import net.runelite.api.events.ClanMemberLeft;
+import net.runelite.api.events.FriendsChatMemberJoined;
+import net.runelite.api.events.FriendsChatMemberLeft;
+import net.runelite.api.events.PlayerDespawned;
+import net.runelite.api.events.PlayerSpawned;
+import net.runelite.client.callback.ClientThread;
+
+/**
+ * Drives the plugin headless, with stand-ins for the client, its players, the
+ * clan channel and the config. Background work like file writes is dropped,
+ * the harness only runs what the client thread would.
+ */
+class PluginHarness {
+    static final int WORLD = 301;
+
+    private static final Map<String, Object> CONFIG_DEFAULTS = new HashMap<>();
+
+    static {
+        CONFIG_DEFAULTS.put("filterType", ClanChannelType.CLAN_CHAT);
+        CONFIG_DEFAULTS.put("presentThreshold", 60 * 10);
+        CONFIG_DEFAULTS.put("lateMembers", true);
+        CONFIG_DEFAULTS.put("lateThreshold", 60 * 5);
+        CONFIG_DEFAULTS.put("outputFormat", OutputFormat.TEXT);
+        CONFIG_DEFAULTS.put("discordMarkdown", true);
+        CONFIG_DEFAULTS.put("listPrefix", "Event name: \nHosted by: ");
+        CONFIG_DEFAULTS.put("listSuffix", "Thanks for coming!");
+        CONFIG_DEFAULTS.put("presentColor", Color.green);
+        CONFIG_DEFAULTS.put("absentColor", Color.red);
+        CONFIG_DEFAULTS.put("blockCopyButton", true);
+        CONFIG_DEFAULTS.put("topCopyButton", true);
+        CONFIG_DEFAULTS.put("confirmationMessages", false);
+        CONFIG_DEFAULTS.put("panelRefreshRate", 2);
+        CONFIG_DEFAULTS.put("memberTable", true);
+        CONFIG_DEFAULTS.put("debugTimings", false);
+        CONFIG_DEFAULTS.put("copyChunkSize", 0);
+        CONFIG_DEFAULTS.put("namedEvents", "");
+        CONFIG_DEFAULTS.put("eventArea", "");
+        CONFIG_DEFAULTS.put("saveLocally", false);
+        CONFIG_DEFAULTS.put("autosaveInterval", 0);
+        CONFIG_DEFAULTS.put("crashRecovery", false);
+        CONFIG_DEFAULTS.put("attendanceHistory", false);
+        CONFIG_DEFAULTS.put("mergeSnapshots", false);
+    }
+
+    /**
+     * A simulated player, who can be spawned around us and be in the clan
+     * and/or friends chat.
+     */
+    class Member {
+        final String name;
+        final Player player;
+        final ClanChannelMember clanChannelMember;
+        final FriendsChatMember friendsChatMember;
+        boolean spawned;
+        boolean inClanChat;
+        boolean inFriendsChat;
+        WorldPoint location;
+
+        private Member(String name) {
+            this.name = name;
+            this.player = proxy(Player.class, (method, args) -> {
+                switch (method.getName()) {
+                    case "getName":
+                        return name;
+                    case "isClanMember":
+                        return inClanChat;
+                    case "isFriendsChatMember":
+                        return inFriendsChat;
+                    case "getWorldLocation":
+                        return location;
+                    default:
+                        return defaultValue(method);
+                }
+            });
+            this.clanChannelMember = chatMember(ClanChannelMember.class, name);
+            this.friendsChatMember = chatMember(FriendsChatMember.class, name);
+        }
+    }
+
+    // Runs client thread work right away, the harness is the client thread
+    private static class DirectClientThread extends ClientThread {
+        @Override
+        public void invokeLater(Runnable r) {
+            r.run();
+        }
+
+        @Override
+        public void invoke(Runnable r) {
+            r.run();
+        }
+    }
+
+    private static class DiscardingExecutor extends ScheduledThreadPoolExecutor {
+        DiscardingExecutor() {
+            super(1);
+        }
+
+        @Override
+        public void execute(Runnable command) {
+        }
+    }
+
+    private final Map<String, Member> members = new LinkedHashMap<>();
+    private final List<Member> memberList = new ArrayList<>();
+    private final List<Player> players = new ArrayList<>();
+    private final List<ClanChannelMember> clanChannelMembers = new ArrayList<>();
+    private final ClanChannel clanChannel;
+    private final Map<String, Object> configValues = new HashMap<>(CONFIG_DEFAULTS);
+    private final ScheduledExecutorService executor = new DiscardingExecutor();
+    private int tickCount;
+
+    final ClanEventAttendancePlugin plugin;
+    final RenderScheduler renderScheduler;
+
+    PluginHarness() {
+        this(Collections.emptyMap());
+    }
+
+    PluginHarness(Map<String, Object> configOverrides) {
+        configValues.putAll(configOverrides);
+
+        clanChannel = proxy(ClanChannel.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return "Harness";
+                case "getMembers":
+                    return clanChannelMembers;
+                default:
+                    return defaultValue(method);
+            }
+        });
+
+        final Client client = proxy(Client.class, (method, args) -> {
+            switch (method.getName()) {
+                case "getTickCount":
+                    return tickCount;
+                case "getWorld":
+                    return WORLD;
+                case "getPlayers":
+                    return players;
+                case "getClanChannel":
+                    return clanChannel;
+                default:
+                    return defaultValue(method);
+            }
+        });
+
+        final ClanEventAttendanceConfig config = proxy(ClanEventAttendanceConfig.class, (method, args) -> {
+            if (!configValues.containsKey(method.getName()))
+                throw new IllegalStateException("No harness value for config item " + method.getName());
+
+            return configValues.get(method.getName());
+        });
+
+        final Injector injector = Guice.createInjector(binder -> {
+            binder.bind(Client.class).toInstance(client);
+            binder.bind(ClanEventAttendanceConfig.class).toInstance(config);
+            binder.bind(ClientThread.class).toInstance(new DirectClientThread());
+            binder.bind(ScheduledExecutorService.class).toInstance(executor);
+        });
+
+        plugin = injector.getInstance(ClanEventAttendancePlugin.class);
+        renderScheduler = injector.getInstance(RenderScheduler.class);
+        plugin.initConfig();
+    }
+
+    int tickCount() {
+        return tickCount;
+    }
+
+    Member member(String name) {
+        return members.computeIfAbsent(name, n -> {
+            final Member member = new Member(n);
+            memberList.add(member);
+            return member;
+        });
+    }
+
+    Member member(int index) {
+        return memberList.get(index);
+    }
+
+    int memberCount() {
+        return memberList.size();
+    }
+
+    void startEvent() {
+        plugin.startEvent();
+    }
+
+    void stopEvent() {
+        plugin.stopEvent();
+    }
+
+    // Spawns count clan chat members and lets the initial scan run
+    void populate(int count) {
+        for (int i = 0; i < count; ++i) {
+            final Member member = member("Member " + i);
+            clanJoin(member);
+            spawn(member);
+        }
+
+        tick();
+        tick();
+    }
+
+    void spawn(Member member) {
+        if (member.spawned)
+            return;
+
+        member.spawned = true;
+        players.add(member.player);
+        plugin.onPlayerSpawned(new PlayerSpawned(member.player));
+    }
+
+    // Seen by the area check of the next tick
+    void move(Member member, int x, int y) {
+        member.location = new WorldPoint(x, y, 0);
+    }
+
+    void despawn(Member member) {
+        if (!member.spawned)
+            return;
+
+        member.spawned = false;
+        players.remove(member.player);
+        plugin.onPlayerDespawned(new PlayerDespawned(member.player));
+    }
+
+    void clanJoin(Member member) {
+        if (member.inClanChat)
+            return;
+
+        member.inClanChat = true;
+        clanChannelMembers.add(member.clanChannelMember);
+        plugin.onClanMemberJoined(new ClanMemberJoined(clanChannel, member.clanChannelMember));
+    }
+
+    void clanLeave(Member member) {
+        if (!member.inClanChat)
+            return;
+
+        member.inClanChat = false;
+        clanChannelMembers.remove(member.clanChannelMember);
+        plugin.onClanMemberLeft(new ClanMemberLeft(clanChannel, member.clanChannelMember));
+    }
+
+    void friendsChatJoin(Member member) {
+        if (member.inFriendsChat)
+            return;
+
+        member.inFriendsChat = true;
+        plugin.onFriendsChatMemberJoined(new FriendsChatMemberJoined(member.friendsChatMember));
+    }
+
+    void friendsChatLeave(Member member) {
+        if (!member.inFriendsChat)
+            return;
+
+        member.inFriendsChat = false;
+        plugin.onFriendsChatMemberLeft(new FriendsChatMemberLeft(member.friendsChatMember));
+    }
+
+    // Starts the next tick, events delivered until the next gameTick() happen during it
+    void advance() {
+        ++tickCount;
+    }
+
+    // Skips ticks without game tick processing, for very long events
+    void advance(int ticks) {
+        tickCount += ticks;
+    }
+
+    void gameTick() {
+        plugin.onGameTick(null);
+    }
+
+    void tick() {
+        advance();
+        gameTick();
+    }
+
+    void close() {
+        executor.shutdownNow();
+    }
+
+    private interface Handler {
+        Object invoke(Method method, Object[] args);
+    }
+
+    private static <T> T chatMember(Class<T> type, String name) {
+        return proxy(type, (method, args) -> {
+            switch (method.getName()) {
+                case "getName":
+                    return name;
+                case "getWorld":
+                    return WORLD;
+                default:
+                    return defaultValue(method);
+            }
+        });
+    }
+
+    @SuppressWarnings("unchecked")
+    private static <T> T proxy(Class<T> type, Handler handler) {
+        return (T) Proxy.newProxyInstance(type.getClassLoader(), new Class<?>[] { type }, (proxy, method, args) -> {
+            if (method.getDeclaringClass() == Object.class) {
+                switch (method.getName()) {
+                    case "equals":
+                        return proxy == args[0];
+                    case "hashCode":
+                        return System.identityHashCode(proxy);
+                    default:
+                        return type.getSimpleName() + "@" + Integer.toHexString(System.identityHashCode(proxy));
+                }
+            }
+
+            return handler.invoke(method, args);
+        });
+    }
+
+    private static Object defaultValue(Method method) {
+        final Class<?> type = method.getReturnType();
+        if (type == boolean.class)
+            return false;
+        if (type == int.class)
+            return 0;
+        if (type == long.class)
+            return 0L;
+        if (type.isPrimitive() && type != void.class)
+            throw new IllegalStateException("No stand-in for " + method);
+        return null;
+    }
+}
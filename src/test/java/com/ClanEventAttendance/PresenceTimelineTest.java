@@ -0,0 +1,77 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import static org.junit.Assert.assertArrayEquals;
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+import org.junit.Test;
+
+public class PresenceTimelineTest {
+    @Test
+    public void queriesClosedAndOpenIntervals() {
+        final PresenceTimeline timeline = new PresenceTimeline();
+        timeline.open(0, 10);
+        timeline.close(0, 110);
+        // Past a single varint byte
+        timeline.open(0, 500);
+        timeline.close(0, 70000);
+        timeline.open(0, 80000);
+
+        assertFalse(timeline.isPresentAt(0, 9));
+        assertTrue(timeline.isPresentAt(0, 10));
+        assertTrue(timeline.isPresentAt(0, 109));
+        assertFalse(timeline.isPresentAt(0, 110));
+        assertTrue(timeline.isPresentAt(0, 69999));
+        assertFalse(timeline.isPresentAt(0, 75000));
+        assertTrue(timeline.isPresentAt(0, 90000));
+
+        assertEquals(3, timeline.intervalCount(0));
+        assertArrayEquals(new int[] { 10, 110, 500, 70000, 80000, 80100 }, timeline.intervals(0, 80100));
+        assertEquals(50 + 100, timeline.ticksPresent(0, 60, 600));
+        assertEquals(100 + 69500 + 100, timeline.ticksPresent(0, 0, 80100));
+    }
+
+    @Test
+    public void dropsEmptyIntervalsAndResetsOnClear() {
+        final PresenceTimeline timeline = new PresenceTimeline();
+        timeline.open(3, 20);
+        timeline.close(3, 20);
+
+        assertEquals(0, timeline.intervalCount(3));
+        assertEquals(0, timeline.intervalCount(0));
+
+        timeline.append(3, 30, 40);
+        timeline.clear();
+
+        assertEquals(0, timeline.intervalCount(3));
+        assertFalse(timeline.isPresentAt(3, 35));
+    }
+}
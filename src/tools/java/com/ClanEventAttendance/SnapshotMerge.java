@@ -0,0 +1,88 @@
+/*
+BSD 2-Clause License
+
+Copyright (c) 2021, Jonathan Rousseau <https://github.com/JoRouss>
+All rights reserved.
+
+Redistribution and use in source and binary forms, with or without
+modification, are permitted provided that the following conditions are met:
+
+1. Redistributions of source code must retain the above copyright notice, this
+   list of conditions and the following disclaimer.
+
+2. Redistributions in binary form must reproduce the above copyright notice,
+   this list of conditions and the following disclaimer in the documentation
+   and/or other materials provided with the distribution.
+
+THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS "AS IS"
+AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT LIMITED TO, THE
+IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS FOR A PARTICULAR PURPOSE ARE
+DISCLAIMED. IN NO EVENT SHALL THE COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE
+FOR ANY DIRECT, INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL
+DAMAGES (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION) HOWEVER
+CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT, STRICT LIABILITY,
+OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE) ARISING IN ANY WAY OUT OF THE USE
+OF THIS SOFTWARE, EVEN IF ADVISED OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+package com.ClanEventAttendance;
+
+import com.ClanEventAttendance.config.OutputFormat;
+import java.io.IOException;
+import java.io.Reader;
+import java.io.Writer;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Paths;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Merges snapshots saved by several clients outside the client, the same as
+ * the panel's merge button. The thresholds are in seconds, like the config,
+ * ex: gradlew merge -Pmerge.args="merged 600 300 a.snapshot b.snapshot"
+ * writes merged.snapshot and merged.json.
+ */
+public class SnapshotMerge {
+    private static final int FIRST_FILE = 3;
+
+    public static void main(String[] args) throws IOException {
+        if (args.length <= FIRST_FILE) {
+            System.err.println("Usage: SnapshotMerge <output name> <time threshold> <late threshold> <snapshot file>...");
+            System.exit(2);
+            return;
+        }
+
+        final int presentThreshold;
+        final int lateThreshold;
+        try {
+            presentThreshold = Integer.parseInt(args[1]);
+            lateThreshold = Integer.parseInt(args[2]);
+        } catch (NumberFormatException e) {
+            System.err.println("Thresholds are whole seconds: " + e.getMessage());
+            System.exit(2);
+            return;
+        }
+
+        final long start = System.nanoTime();
+        final List<AttendanceSnapshot> snapshots = new ArrayList<>(args.length - FIRST_FILE);
+        for (int i = FIRST_FILE; i < args.length; ++i) {
+            try (Reader reader = Files.newBufferedReader(Paths.get(args[i]), StandardCharsets.UTF_8)) {
+                snapshots.add(AttendanceSnapshot.read(reader));
+            }
+        }
+
+        final AttendanceSnapshot merged = AttendanceSnapshot.merge(snapshots);
+        final AttendanceExport export = merged.toExport(presentThreshold, lateThreshold);
+
+        try (Writer out = Files.newBufferedWriter(Paths.get(args[0] + AttendanceSnapshot.FILE_SUFFIX), StandardCharsets.UTF_8)) {
+            merged.write(out);
+        }
+        try (Writer out = Files.newBufferedWriter(Paths.get(args[0] + ".json"), StandardCharsets.UTF_8)) {
+            export.write(out, OutputFormat.JSON);
+        }
+
+        System.out.printf("%d snapshots, %d members over %d ticks, %.1f ms%n", snapshots.size(),
+                merged.getMembers().size(), merged.getDurationTicks(), (System.nanoTime() - start) / 1e6);
+    }
+}